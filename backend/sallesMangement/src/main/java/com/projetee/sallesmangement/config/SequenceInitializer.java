@@ -0,0 +1,51 @@
+package com.projetee.sallesmangement.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Les ventes et lignes de vente étaient en IDENTITY : sur une base existante,
+ * les séquences créées par Hibernate repartent de 1. On les place au-delà du
+ * plus grand id déjà utilisé avant la première insertion : pendant l'initialisation
+ * des beans, avant que le serveur n'accepte des requêtes. Les services qui insèrent
+ * des ventes ou des lignes en dépendent (@DependsOn).
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceInitializer implements InitializingBean {
+
+    // doit correspondre à allocationSize des @SequenceGenerator
+    private static final long ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        align("sale_seq", "sale");
+        align("ligne_vente_seq", "ligne_vente");
+    }
+
+    private void align(String sequence, String table) {
+
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        Long next = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+
+        // optimiseur "pooled" : la valeur lue est la borne haute du bloc [next - 49, next]
+        if (next == null || next - ALLOCATION_SIZE < maxId) {
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + ALLOCATION_SIZE));
+        }
+    }
+}
@@ -2,12 +2,22 @@ package com.projetee.sallesmangement.controller;
 
 import com.projetee.sallesmangement.dto.analytics.*;
 import com.projetee.sallesmangement.service.AnalyticsService;
+import com.projetee.sallesmangement.service.analytics.AnalyticsCache;
+import com.projetee.sallesmangement.service.analytics.KPIStreamBroadcaster;
+import com.projetee.sallesmangement.service.outbox.LowStockAlertListener;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -16,12 +26,21 @@ import java.util.List;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AnalyticsCache analyticsCache;
+    private final KPIStreamBroadcaster kpiStreamBroadcaster;
+    private final LowStockAlertListener lowStockAlertListener;
 
     @GetMapping("/kpi")
     public KPIResponse getKPI() {
         return analyticsService.getGlobalKPI();
     }
 
+    // évènement "snapshot" à la connexion, puis "delta" après chaque lot de ventes
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamKPI() {
+        return kpiStreamBroadcaster.subscribe();
+    }
+
     @GetMapping("/sales/monthly")
     public MonthlySalesResponse getMonthlySales() {
         return analyticsService.getMonthlySales();
@@ -30,14 +49,19 @@ public class AnalyticsController {
     @GetMapping("/sales/daily")
     public List<DailySalesResponse> getDailySales(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "day") String granularity
     ) {
-        return analyticsService.getDailySales(start, end);
+        return analyticsService.getDailySales(start, end, SalesGranularity.fromCode(granularity));
     }
 
     @GetMapping("/products/best-sellers")
-    public List<TopProductResponse> getBestSellers(@RequestParam(defaultValue = "10") int limit) {
-        return analyticsService.getBestSellers(limit);
+    public List<TopProductResponse> getBestSellers(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "quantity") String rankBy,
+            @RequestParam(required = false) Long categoryId
+    ) {
+        return analyticsService.getBestSellers(limit, BestSellerRanking.fromCode(rankBy), categoryId);
     }
 
     @GetMapping("/products/slow-movers")
@@ -55,6 +79,12 @@ public class AnalyticsController {
         return analyticsService.getLowStockProducts(threshold);
     }
 
+    // alertes levées par les ventes récentes (outbox)
+    @GetMapping("/products/low-stock/alerts")
+    public List<LowStockAlertResponse> getLowStockAlerts() {
+        return lowStockAlertListener.recentAlerts();
+    }
+
     @GetMapping("/categories")
     public List<CategoryStatsResponse> getCategoryStats() {
         return analyticsService.getCategoryStats();
@@ -66,7 +96,35 @@ public class AnalyticsController {
     }
 
     @GetMapping("/basket/stats")
-    public BasketStatsResponse getBasketStats() {
-        return analyticsService.getBasketStats();
+    public BasketStatsResponse getBasketStats(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to
+    ) {
+        return analyticsService.getBasketStats(from, to);
+    }
+
+    @GetMapping("/dashboard")
+    public DashboardResponse getDashboard(
+            @RequestParam(required = false) List<String> widgets,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        Set<DashboardWidget> selected = widgets == null || widgets.isEmpty()
+                ? EnumSet.allOf(DashboardWidget.class)
+                : widgets.stream()
+                .map(DashboardWidget::fromCode)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(DashboardWidget.class)));
+
+        return analyticsService.getDashboard(selected, limit);
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStatsResponse getCacheStats() {
+        return analyticsCache.stats();
+    }
+
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Void> rebuildRollup() {
+        analyticsService.rebuildRollup();
+        return ResponseEntity.noContent().build();
     }
 }
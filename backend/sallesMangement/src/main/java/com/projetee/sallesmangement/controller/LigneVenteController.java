@@ -1,5 +1,6 @@
 package com.projetee.sallesmangement.controller;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteResponse;
 import com.projetee.sallesmangement.service.LigneVenteService;
@@ -51,4 +52,13 @@ public class LigneVenteController {
     ) {
         return ResponseEntity.ok(service.getPaginated(page, size));
     }
+
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<LigneVenteResponse>> getAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return ResponseEntity.ok(service.getAfter(after, size, includeTotal));
+    }
 }
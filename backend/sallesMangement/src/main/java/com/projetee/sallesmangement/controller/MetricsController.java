@@ -0,0 +1,39 @@
+package com.projetee.sallesmangement.controller;
+
+import com.projetee.sallesmangement.dto.metrics.ConflictStatsResponse;
+import com.projetee.sallesmangement.dto.metrics.LockStatsResponse;
+import com.projetee.sallesmangement.dto.metrics.OutboxStatusResponse;
+import com.projetee.sallesmangement.service.lock.StripedLocks;
+import com.projetee.sallesmangement.service.outbox.OutboxDispatcher;
+import com.projetee.sallesmangement.service.retry.ConflictMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final ConflictMetrics conflictMetrics;
+    private final OutboxDispatcher outboxDispatcher;
+    private final StripedLocks saleLocks;
+
+    @GetMapping("/conflicts")
+    public ConflictStatsResponse getConflictStats() {
+        return conflictMetrics.stats();
+    }
+
+    @GetMapping("/locks")
+    public LockStatsResponse getLockStats() {
+        return saleLocks.stats();
+    }
+
+    @GetMapping("/outbox")
+    public List<OutboxStatusResponse> getOutboxStatus() {
+        return outboxDispatcher.status();
+    }
+}
@@ -1,16 +1,24 @@
 package com.projetee.sallesmangement.controller;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.product.ProductRequest;
 import com.projetee.sallesmangement.dto.product.ProductResponse;
+import com.projetee.sallesmangement.dto.stock.StockLevelResponse;
+import com.projetee.sallesmangement.dto.stock.StockMovementResponse;
 import com.projetee.sallesmangement.service.ProductService;
+import com.projetee.sallesmangement.service.StockLedgerService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +27,7 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService service;
+    private final StockLedgerService ledgerService;
 
     @PostMapping
     public ResponseEntity<ProductResponse> create(@Valid @RequestBody ProductRequest request) {
@@ -34,8 +43,18 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(service::writeAll);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(service.search(q, limit));
     }
 
     @GetMapping("/page")
@@ -47,6 +66,34 @@ public class ProductController {
         return ResponseEntity.ok(service.getPaginated(page, size, sortBy));
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<ProductResponse>> getAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return ResponseEntity.ok(service.getAfter(after, size, includeTotal));
+    }
+
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<StockLevelResponse> getStockAt(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        return ResponseEntity.ok(ledgerService.getStockAt(id, at != null ? at : LocalDateTime.now()));
+    }
+
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<Page<StockMovementResponse>> getMovements(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(ledgerService.getMovements(id, from, to != null ? to : LocalDateTime.now(), page, size));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> update(
             @PathVariable Long id,
@@ -1,17 +1,34 @@
 package com.projetee.sallesmangement.controller;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
+import com.projetee.sallesmangement.dto.sale.SaleBatchRequest;
+import com.projetee.sallesmangement.dto.sale.SaleBatchResponse;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelRequest;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelResponse;
 import com.projetee.sallesmangement.dto.sale.SaleRequest;
 import com.projetee.sallesmangement.dto.sale.SaleResponse;
+import com.projetee.sallesmangement.dto.sale.SaleTicketResponse;
+import com.projetee.sallesmangement.exception.BadRequestException;
 import com.projetee.sallesmangement.service.SaleService;
+import com.projetee.sallesmangement.service.export.SaleExportFormat;
+import com.projetee.sallesmangement.service.export.SaleExporter;
+import com.projetee.sallesmangement.service.idempotency.IdempotencyStore;
+import com.projetee.sallesmangement.service.ingestion.SaleIngestionQueue;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,13 +37,43 @@ import java.util.List;
 public class SaleController {
 
     private final SaleService service;
+    private final IdempotencyStore idempotencyStore;
+    private final SaleIngestionQueue ingestionQueue;
+    private final SaleExporter exporter;
 
+    // une relance avec la même Idempotency-Key renvoie la vente déjà créée ;
+    // async=true : 202 avec un ticket, la vente est traitée par la file d'ingestion
     @PostMapping
-    public ResponseEntity<SaleResponse> create(@Valid @RequestBody SaleRequest request) {
-        SaleResponse response = service.create(request);
-        return ResponseEntity
-                .created(URI.create("/api/sales/" + response.getId()))
-                .body(response);
+    public ResponseEntity<?> create(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestParam(defaultValue = "false") boolean async,
+            @Valid @RequestBody SaleRequest request) {
+        if (async) {
+            return idempotencyStore.execute(idempotencyKey, List.of("create-async", request), () -> {
+                SaleTicketResponse ticket = ingestionQueue.submit(request);
+                return ResponseEntity
+                        .accepted()
+                        .location(URI.create("/api/sales/tickets/" + ticket.getTicketId()))
+                        .body(ticket);
+            });
+        }
+        return idempotencyStore.execute(idempotencyKey, List.of("create", request), () -> {
+            SaleResponse response = service.create(request);
+            return ResponseEntity
+                    .created(URI.create("/api/sales/" + response.getId()))
+                    .body(response);
+        });
+    }
+
+    // résultat par vente : le lot est traité même si certaines ventes échouent
+    @PostMapping("/batch")
+    public ResponseEntity<SaleBatchResponse> createBatch(@Valid @RequestBody SaleBatchRequest request) {
+        return ResponseEntity.ok(service.createBatch(request.getSales()));
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<SaleTicketResponse> getTicket(@PathVariable String ticketId) {
+        return ResponseEntity.ok(ingestionQueue.getTicket(ticketId));
     }
 
     @GetMapping("/{id}")
@@ -34,9 +81,12 @@ public class SaleController {
         return ResponseEntity.ok(service.get(id));
     }
 
+    // tableau JSON écrit au fil de la lecture, sans charger toute la table en mémoire
     @GetMapping
-    public ResponseEntity<List<SaleResponse>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(service::writeAll);
     }
 
     @GetMapping("/page")
@@ -47,6 +97,37 @@ public class SaleController {
         return ResponseEntity.ok(service.getPaginated(page, size));
     }
 
+    // pagination par curseur : ?after=<nextCursor de la page précédente>, total seulement si includeTotal=true
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<SaleResponse>> getAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return ResponseEntity.ok(service.getAfter(after, size, includeTotal));
+    }
+
+    // export en flux (csv ou ndjson), une ligne par ligne de vente, sans charger la période en mémoire
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        SaleExportFormat exportFormat = SaleExportFormat.fromCode(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        StreamingResponseBody body = out -> exporter.export(exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("sales." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
@@ -54,9 +135,18 @@ public class SaleController {
         return ResponseEntity.noContent().build();
     }
 
+    // annulation en lot : par ids ou par filtre (période, vendeur), en une transaction
+    @PostMapping("/cancel")
+    public ResponseEntity<SaleBulkCancelResponse> cancelBulk(@RequestBody SaleBulkCancelRequest request) {
+        return ResponseEntity.ok(service.cancelBulk(request));
+    }
+
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<SaleResponse> cancel(@PathVariable Long id) {
-        return ResponseEntity.ok(service.cancel(id));
+    public ResponseEntity<SaleResponse> cancel(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @PathVariable Long id) {
+        return idempotencyStore.execute(idempotencyKey, List.of("cancel", id),
+                () -> ResponseEntity.ok(service.cancel(id)));
     }
 }
 
@@ -1,5 +1,6 @@
 package com.projetee.sallesmangement.controller;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.user.UserRequest;
 import com.projetee.sallesmangement.dto.user.UserResponse;
 import com.projetee.sallesmangement.service.UserService;
@@ -8,8 +9,10 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
@@ -35,8 +38,10 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(service::writeAll);
     }
 
     @GetMapping("/page")
@@ -48,6 +53,15 @@ public class UserController {
         return ResponseEntity.ok(service.getPaginated(page, size, sortBy));
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<UserResponse>> getAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        return ResponseEntity.ok(service.getAfter(after, size, includeTotal));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<UserResponse> update(
             @PathVariable Long id,
@@ -5,7 +5,13 @@ import lombok.Data;
 @Data
 public class BasketStatsResponse {
 
+    private long count;
     private double averageBasket;
     private double variance;
     private double standardDeviation;
+
+    // quantiles approchés (erreur relative ~1 %)
+    private double median;
+    private double p90;
+    private double p99;
 }
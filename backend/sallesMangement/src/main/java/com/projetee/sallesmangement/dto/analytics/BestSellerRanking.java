@@ -0,0 +1,24 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import com.projetee.sallesmangement.dto.common.CodedEnum;
+
+public enum BestSellerRanking implements CodedEnum {
+
+    QUANTITY("quantity"),
+    REVENUE("revenue");
+
+    private final String code;
+
+    BestSellerRanking(String code) {
+        this.code = code;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    public static BestSellerRanking fromCode(String code) {
+        return CodedEnum.fromCode(BestSellerRanking.class, code, "ranking");
+    }
+}
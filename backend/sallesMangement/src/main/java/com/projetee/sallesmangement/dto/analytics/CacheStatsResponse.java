@@ -0,0 +1,14 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsResponse {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+    private int maxSize;
+    private long ttlSeconds;
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 @Data
 public class DailySalesResponse {
 
+    // premier jour de la période dans la plage demandée (startDate pour une première période partielle)
     private String date;
     private double revenue;
     private long salesCount;
@@ -0,0 +1,19 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+// les widgets non demandés restent null et ne sont pas sérialisés
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardResponse {
+
+    private KPIResponse kpi;
+    private MonthlySalesResponse monthlySales;
+    private List<TopProductResponse> bestSellers;
+    private List<CategoryStatsResponse> categories;
+    private SalesEvolutionResponse evolution;
+    private BasketStatsResponse basket;
+}
@@ -0,0 +1,28 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import com.projetee.sallesmangement.dto.common.CodedEnum;
+
+public enum DashboardWidget implements CodedEnum {
+
+    KPI("kpi"),
+    MONTHLY_SALES("monthly"),
+    BEST_SELLERS("best-sellers"),
+    CATEGORIES("categories"),
+    EVOLUTION("evolution"),
+    BASKET("basket");
+
+    private final String code;
+
+    DashboardWidget(String code) {
+        this.code = code;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    public static DashboardWidget fromCode(String code) {
+        return CodedEnum.fromCode(DashboardWidget.class, code, "dashboard widget");
+    }
+}
@@ -0,0 +1,22 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+// seuls les champs modifiés depuis la version précédente sont sérialisés
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KPIDeltaResponse {
+
+    private long version;
+
+    private Long salesCount;
+    private Long salesCountDelta;
+
+    private Double totalRevenue;
+    private Double revenueDelta;
+
+    private Double currentMonthRevenue;
+    private Double averageBasket;
+    private String bestSellerProduct;
+}
@@ -0,0 +1,16 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import lombok.Data;
+
+// état complet envoyé à la connexion d'un client SSE
+@Data
+public class KPISnapshotResponse {
+
+    private long version;
+
+    private long salesCount;
+    private double totalRevenue;
+    private double currentMonthRevenue;
+    private double averageBasket;
+    private String bestSellerProduct;
+}
@@ -0,0 +1,17 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class LowStockAlertResponse {
+
+    private Long productId;
+    private String title;
+    private int stock;
+
+    // vente dont l'évènement a déclenché l'alerte
+    private Long saleId;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,46 @@
+package com.projetee.sallesmangement.dto.analytics;
+
+import com.projetee.sallesmangement.dto.common.CodedEnum;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+public enum SalesGranularity implements CodedEnum {
+
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    private final String code;
+
+    SalesGranularity(String code) {
+        this.code = code;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    /** Premier jour de la période contenant {@code date} (semaine ISO : lundi). */
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+
+    public static SalesGranularity fromCode(String code) {
+        return CodedEnum.fromCode(SalesGranularity.class, code, "granularity");
+    }
+}
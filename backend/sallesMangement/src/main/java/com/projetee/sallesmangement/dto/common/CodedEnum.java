@@ -0,0 +1,32 @@
+package com.projetee.sallesmangement.dto.common;
+
+import com.projetee.sallesmangement.exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Enum exposé dans l'API par un code texte (paramètre de requête).
+ */
+public interface CodedEnum {
+
+    String getCode();
+
+    /**
+     * Valeur dont le code correspond, sans tenir compte de la casse ni des espaces autour.
+     * Code inconnu ou absent : 400, avec la liste des codes acceptés.
+     */
+    static <E extends Enum<E> & CodedEnum> E fromCode(Class<E> type, String code, String label) {
+        E[] values = type.getEnumConstants();
+        if (code != null) {
+            String wanted = code.trim();
+            for (E value : values) {
+                if (value.getCode().equalsIgnoreCase(wanted)) {
+                    return value;
+                }
+            }
+        }
+        String accepted = Arrays.stream(values).map(CodedEnum::getCode).collect(Collectors.joining(", "));
+        throw new BadRequestException("Unknown " + label + ": " + code + " (" + accepted + ")");
+    }
+}
@@ -0,0 +1,25 @@
+package com.projetee.sallesmangement.dto.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+
+    // à renvoyer tel quel dans ?after= pour la page suivante ; absent sur la dernière page
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    // uniquement avec includeTotal=true : le COUNT n'est pas exécuté sinon
+    private Long totalElements;
+}
@@ -0,0 +1,19 @@
+package com.projetee.sallesmangement.dto.metrics;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class ConflictStatsResponse {
+
+    private long conflicts;
+    private long retries;
+
+    // réussies après au moins une nouvelle tentative
+    private long recovered;
+    // abandonnées après le nombre maximal de tentatives
+    private long exhausted;
+
+    private Map<String, Long> conflictsByOperation;
+}
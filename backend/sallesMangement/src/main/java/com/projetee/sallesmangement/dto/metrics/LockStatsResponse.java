@@ -0,0 +1,14 @@
+package com.projetee.sallesmangement.dto.metrics;
+
+import lombok.Data;
+
+@Data
+public class LockStatsResponse {
+
+    private int stripes;
+    private long acquisitions;
+
+    // acquisitions qui ont dû attendre une autre modification de la même bande
+    private long contended;
+    private long totalWaitMillis;
+}
@@ -0,0 +1,19 @@
+package com.projetee.sallesmangement.dto.metrics;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OutboxStatusResponse {
+
+    private String listener;
+    private long lastEventId;
+
+    // évènements écrits mais pas encore traités par cet écouteur
+    private long pendingEvents;
+
+    // ids sautés, pas encore commités : leurs évènements seront distribués s'ils apparaissent
+    private long openGaps;
+    private LocalDateTime updatedAt;
+}
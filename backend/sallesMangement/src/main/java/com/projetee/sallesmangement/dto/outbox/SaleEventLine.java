@@ -0,0 +1,18 @@
+package com.projetee.sallesmangement.dto.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleEventLine {
+
+    private Long lineId;
+    private Long productId;
+
+    // variation des quantités / montants vendus (négative pour une annulation)
+    private int quantityDelta;
+    private double amountDelta;
+}
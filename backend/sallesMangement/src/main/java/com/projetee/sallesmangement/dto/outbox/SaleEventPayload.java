@@ -0,0 +1,27 @@
+package com.projetee.sallesmangement.dto.outbox;
+
+import com.projetee.sallesmangement.entity.SaleStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contenu d'un évènement d'outbox : assez pour que les écouteurs n'aient pas
+ * à relire la vente.
+ */
+@Data
+public class SaleEventPayload {
+
+    private Long saleId;
+    private Long userId;
+    private LocalDate saleDate;
+    private SaleStatus status;
+
+    // total de la vente après l'évènement, et écart avec le total précédent
+    private double totalAmount;
+    private double totalDelta;
+
+    private List<SaleEventLine> lines = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.projetee.sallesmangement.dto.sale;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+// pas de @Valid sur les éléments : une vente invalide échoue seule, pas tout le lot
+@Data
+public class SaleBatchRequest {
+
+    @NotEmpty
+    private List<SaleRequest> sales;
+}
@@ -0,0 +1,15 @@
+package com.projetee.sallesmangement.dto.sale;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SaleBatchResponse {
+
+    private int received;
+    private int created;
+    private int failed;
+
+    private List<SaleBatchResult> results;
+}
@@ -0,0 +1,38 @@
+package com.projetee.sallesmangement.dto.sale;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SaleBatchResult {
+
+    // position de la vente dans la requête
+    private int index;
+    private boolean success;
+
+    private Long saleId;
+    private Double totalAmount;
+    private String error;
+
+    // échec technique (tranche annulée) : la même vente peut être resoumise telle quelle
+    @JsonIgnore
+    private boolean retryable;
+
+    public static SaleBatchResult created(int index, Long saleId, double totalAmount) {
+        return new SaleBatchResult(index, true, saleId, totalAmount, null, false);
+    }
+
+    public static SaleBatchResult failed(int index, String error) {
+        return new SaleBatchResult(index, false, null, null, error, false);
+    }
+
+    public static SaleBatchResult rolledBack(int index, String error) {
+        return new SaleBatchResult(index, false, null, null, error, true);
+    }
+}
@@ -0,0 +1,19 @@
+package com.projetee.sallesmangement.dto.sale;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Ventes à annuler : soit une liste d'ids, soit un filtre (période, vendeur).
+ */
+@Data
+public class SaleBulkCancelRequest {
+
+    private List<Long> saleIds;
+
+    private LocalDate from;
+    private LocalDate to;
+    private Long userId;
+}
@@ -0,0 +1,22 @@
+package com.projetee.sallesmangement.dto.sale;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SaleBulkCancelResponse {
+
+    // ventes annulées et quantité rendue par les tranches validées
+    private int cancelled;
+    private long restoredQuantity;
+
+    // ventes des tranches annulées sur erreur, toujours confirmées (à relancer)
+    private int failed;
+    private List<Long> failedIds;
+
+    // ids demandés mais introuvables ou déjà annulés (annulation par ids uniquement)
+    private List<Long> skippedIds;
+}
@@ -0,0 +1,22 @@
+package com.projetee.sallesmangement.dto.sale;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SaleTicketResponse {
+
+    private String ticketId;
+    private SaleTicketStatus status;
+
+    // renseignés une fois la vente traitée
+    private Long saleId;
+    private Double totalAmount;
+    private String error;
+
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
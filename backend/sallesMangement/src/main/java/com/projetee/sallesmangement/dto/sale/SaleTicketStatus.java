@@ -0,0 +1,8 @@
+package com.projetee.sallesmangement.dto.sale;
+
+public enum SaleTicketStatus {
+    QUEUED,
+    PROCESSING,
+    CREATED,
+    FAILED
+}
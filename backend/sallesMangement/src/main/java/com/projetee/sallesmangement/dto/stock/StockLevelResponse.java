@@ -0,0 +1,17 @@
+package com.projetee.sallesmangement.dto.stock;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class StockLevelResponse {
+
+    private Long productId;
+    private LocalDateTime at;
+    private long stock;
+
+    // point de départ du calcul (null : relu depuis le début du journal)
+    private LocalDateTime snapshotAt;
+    private long replayedMovements;
+}
@@ -0,0 +1,20 @@
+package com.projetee.sallesmangement.dto.stock;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.projetee.sallesmangement.entity.StockMovementReason;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockMovementResponse {
+
+    private Long id;
+    private Long productId;
+    private int delta;
+    private StockMovementReason reason;
+    private Long saleId;
+    private Long lineId;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,50 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Statistiques de panier incrémentales d'un mois. Chaque mois est réparti sur
+ * plusieurs shards (id de vente modulo N) pour éviter une ligne unique verrouillée
+ * par toutes les ventes ; les shards sont fusionnés à la lecture.
+ */
+@Entity
+@Table(name = "basket_stats_shard")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BasketStatsShard {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private long saleCount;
+
+    @Column(nullable = false)
+    private double mean;
+
+    @Column(nullable = false)
+    private double m2;
+
+    @Column(nullable = false, length = 65536)
+    private byte[] sketch;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "month_start", nullable = false)
+        private LocalDate monthStart;
+
+        @Column(nullable = false)
+        private int shard;
+    }
+}
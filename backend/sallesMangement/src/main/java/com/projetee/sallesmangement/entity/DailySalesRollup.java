@@ -0,0 +1,46 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Projection des ventes confirmées par jour et par produit, maintenue dans la
+ * même transaction que les ventes et lignes de vente.
+ */
+@Entity
+@Table(
+        name = "daily_sales_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"sale_date", "product_id"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    @Column(nullable = false)
+    private double revenue;
+
+    // nombre de ventes confirmées contenant le produit ce jour-là : une vente compte une fois,
+    // même avec plusieurs lignes du produit (ligne ajoutée après coup)
+    @Column(nullable = false)
+    private long saleCount;
+}
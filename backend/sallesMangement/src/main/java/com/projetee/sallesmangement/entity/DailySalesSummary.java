@@ -0,0 +1,28 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Totaux journaliers des ventes confirmées (CA + nombre de ventes).
+ */
+@Entity
+@Table(name = "daily_sales_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailySalesSummary {
+
+    @Id
+    @Column(name = "sale_date")
+    private LocalDate saleDate;
+
+    @Column(nullable = false)
+    private double revenue;
+
+    @Column(nullable = false)
+    private long saleCount;
+}
@@ -5,14 +5,17 @@ import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 @Entity
-@Data
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class LigneVente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ligne_vente_seq")
+    @SequenceGenerator(name = "ligne_vente_seq", sequenceName = "ligne_vente_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -28,5 +31,18 @@ public class LigneVente {
     private Product product;
 
     @ManyToOne(optional = false)
+    @ToString.Exclude
     private Sale sale;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LigneVente other)) return false;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return LigneVente.class.hashCode();
+    }
 }
@@ -0,0 +1,47 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Évènement de vente écrit dans la transaction qui le produit,
+ * puis distribué aux écouteurs par {@code OutboxDispatcher}.
+ */
+@Entity
+@Immutable
+@Table(name = "outbox_event")
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    // séquence sans pool : les ids suivent l'ordre d'écriture, même entre instances,
+    // ce qui permet aux écouteurs de reprendre à partir d'un simple offset ;
+    // un trou (transaction encore ouverte ou annulée) est géré par OutboxDispatcher
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private OutboxEventType type;
+
+    @Column(name = "sale_id", nullable = false)
+    private Long saleId;
+
+    // SaleEventPayload en JSON
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package com.projetee.sallesmangement.entity;
+
+public enum OutboxEventType {
+    SALE_CREATED,
+    SALE_CANCELLED,
+    SALE_DELETED,
+    LINE_CHANGED
+}
@@ -0,0 +1,40 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id de l'outbox sauté par un écouteur : sa transaction n'était pas commitée quand
+ * la distribution l'a dépassé. {@code OutboxDispatcher} le recherche à chaque lot
+ * et distribue l'évènement s'il finit par apparaître.
+ */
+@Entity
+@Immutable
+@Table(
+        name = "outbox_gap",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"listener", "event_id"})
+)
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxGap {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_gap_seq")
+    @SequenceGenerator(name = "outbox_gap_seq", sequenceName = "outbox_gap_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String listener;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "skipped_at", nullable = false)
+    private LocalDateTime skippedAt;
+}
@@ -0,0 +1,28 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dernier évènement de l'outbox traité par un écouteur.
+ */
+@Entity
+@Table(name = "outbox_offset")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxOffset {
+
+    @Id
+    @Column(length = 100)
+    private String listener;
+
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -4,10 +4,16 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.util.List;
 
 @Entity
-@Data
+// clé de la pagination par curseur (title, id)
+@Table(indexes = @Index(name = "idx_product_title_id", columnList = "title, id"))
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -41,7 +47,26 @@ public class Product {
     @NotNull
     private Integer stock = 0;
 
+    // incrémentée aussi par les UPDATE de stock : une modification basée sur une lecture périmée échoue
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "product")
+    @ToString.Exclude
     private List<LigneVente> lignesVente;
 
+    // égalité sur l'identifiant uniquement : ne parcourt jamais les associations
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Product other)) return false;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Product.class.hashCode();
+    }
 }
@@ -3,19 +3,29 @@ package com.projetee.sallesmangement.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
-@Data
+@Table(indexes = {
+        @Index(name = "idx_sale_date_status", columnList = "sale_date, status"),
+        // clé de la pagination par curseur (sale_date desc, id desc)
+        @Index(name = "idx_sale_date_id", columnList = "sale_date, id")
+})
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Sale {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // séquence allouée par blocs : ids connus sans aller-retour, insertions regroupables en batch JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sale_seq")
+    @SequenceGenerator(name = "sale_seq", sequenceName = "sale_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -28,9 +38,28 @@ public class Sale {
     private User user;
 
     @OneToMany(mappedBy = "sale", cascade = CascadeType.ALL)
+    @ToString.Exclude
     private List<LigneVente> lignesVente;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private SaleStatus status = SaleStatus.CONFIRMED;
+
+    // totalAmount et status sont recalculés en lecture-modification-écriture par les services
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Sale other)) return false;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Sale.class.hashCode();
+    }
 }
@@ -0,0 +1,53 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Journal des mouvements de stock, en ajout seul : la somme des deltas d'un
+ * produit est égale à son stock courant.
+ */
+@Entity
+@Immutable
+@Table(
+        name = "stock_movement",
+        indexes = {
+                @Index(name = "idx_stock_movement_product_time", columnList = "product_id, created_at"),
+                @Index(name = "idx_stock_movement_time", columnList = "created_at")
+        }
+)
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_seq")
+    @SequenceGenerator(name = "stock_movement_seq", sequenceName = "stock_movement_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // négatif quand le stock sort, positif quand il revient
+    @Column(nullable = false)
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockMovementReason reason;
+
+    @Column(name = "sale_id")
+    private Long saleId;
+
+    @Column(name = "line_id")
+    private Long lineId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,11 @@
+package com.projetee.sallesmangement.entity;
+
+public enum StockMovementReason {
+    INITIAL,
+    OPENING_BALANCE,
+    SALE,
+    SALE_CANCEL,
+    LINE_ADD,
+    LINE_UPDATE,
+    LINE_DELETE
+}
@@ -0,0 +1,48 @@
+package com.projetee.sallesmangement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock d'un produit à un instant donné, calculé à partir du journal :
+ * le stock à une date X est le dernier point avant X plus les mouvements qui suivent.
+ */
+@Entity
+@Immutable
+@Table(
+        name = "stock_snapshot",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "taken_at"})
+)
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshot_seq")
+    @SequenceGenerator(name = "stock_snapshot_seq", sequenceName = "stock_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // les mouvements créés jusqu'à cet instant inclus sont comptés
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    @Column(nullable = false)
+    private long stock;
+
+    // somme des mouvements de (windowFrom, takenAt] vue au moment du point : le point suivant
+    // la recalcule, l'écart est la part des mouvements validés après coup (null sur les anciens points)
+    @Column(name = "window_from")
+    private LocalDateTime windowFrom;
+
+    @Column(name = "window_delta")
+    private Long windowDelta;
+}
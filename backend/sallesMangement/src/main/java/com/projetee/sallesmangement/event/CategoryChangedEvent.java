@@ -0,0 +1,7 @@
+package com.projetee.sallesmangement.event;
+
+/**
+ * Publié quand une catégorie est créée, modifiée ou supprimée.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
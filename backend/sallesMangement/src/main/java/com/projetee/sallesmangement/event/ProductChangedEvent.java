@@ -0,0 +1,7 @@
+package com.projetee.sallesmangement.event;
+
+/**
+ * Publié quand un produit est créé, modifié ou supprimé.
+ */
+public record ProductChangedEvent(Long productId) {
+}
@@ -0,0 +1,15 @@
+package com.projetee.sallesmangement.event;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Publié quand des ventes ou lignes de vente confirmées changent.
+ * {@code saleDates} = jours de vente impactés.
+ */
+public record SalesChangedEvent(Set<LocalDate> saleDates) {
+
+    public static SalesChangedEvent of(LocalDate saleDate) {
+        return new SalesChangedEvent(Set.of(saleDate));
+    }
+}
@@ -0,0 +1,7 @@
+package com.projetee.sallesmangement.event;
+
+/**
+ * Publié quand un utilisateur est créé, modifié ou supprimé.
+ */
+public record UserChangedEvent(Long userId) {
+}
@@ -1,6 +1,8 @@
 package com.projetee.sallesmangement.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -49,6 +51,23 @@ public class GlobalExceptionHandler {
                 .body(buildError(HttpStatus.FORBIDDEN, ex.getMessage(), request));
     }
 
+    // file d'attente pleine : le client réessaie plus tard
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiError> handleTooManyRequests(TooManyRequestsException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildError(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), request));
+    }
+
+    // conflit de concurrence encore présent après les nouvelles tentatives
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ApiError> handleConcurrencyFailure(ConcurrencyFailureException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(buildError(HttpStatus.CONFLICT, "Resource was modified concurrently, please retry", request));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleServerError(Exception ex, HttpServletRequest request) {
         return ResponseEntity
@@ -0,0 +1,29 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.BasketStatsShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface BasketStatsShardRepository extends JpaRepository<BasketStatsShard, BasketStatsShard.Key> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from BasketStatsShard b where b.id = :id")
+    Optional<BasketStatsShard> findForUpdate(@Param("id") BasketStatsShard.Key id);
+
+    // tous les shards, verrouillés dans le même ordre que les mises à jour par lot
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from BasketStatsShard b order by b.id.monthStart, b.id.shard")
+    List<BasketStatsShard> findAllForUpdate();
+
+    @Query("select coalesce(sum(b.saleCount), 0) from BasketStatsShard b")
+    long sumSaleCount();
+
+    List<BasketStatsShard> findByIdMonthStartBetween(LocalDate from, LocalDate to);
+}
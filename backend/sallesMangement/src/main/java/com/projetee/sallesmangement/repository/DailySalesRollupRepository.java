@@ -0,0 +1,99 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.DailySalesRollup;
+import com.projetee.sallesmangement.repository.projection.CategoryProductTotal;
+import com.projetee.sallesmangement.repository.projection.ProductSalesTotal;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    // PostgreSQL : insertion ou incrément en une instruction, sans course entre deux premières ventes du jour
+    @Modifying
+    @Query(value = """
+            insert into daily_sales_rollup (sale_date, product_id, category_id, quantity, revenue, sale_count)
+            values (:saleDate, :productId, :categoryId, :quantity, :revenue, :saleCount)
+            on conflict (sale_date, product_id) do update
+            set quantity = daily_sales_rollup.quantity + excluded.quantity,
+                revenue = daily_sales_rollup.revenue + excluded.revenue,
+                sale_count = daily_sales_rollup.sale_count + excluded.sale_count
+            """, nativeQuery = true)
+    int upsert(@Param("saleDate") LocalDate saleDate,
+               @Param("productId") Long productId,
+               @Param("categoryId") Long categoryId,
+               @Param("quantity") long quantity,
+               @Param("revenue") double revenue,
+               @Param("saleCount") long saleCount);
+
+    // équivalent MERGE pour les bases sans "on conflict" (H2 en test)
+    @Modifying
+    @Query(value = """
+            merge into daily_sales_rollup r
+            using (select cast(:saleDate as date) as sale_date, cast(:productId as bigint) as product_id,
+                          cast(:categoryId as bigint) as category_id, cast(:quantity as bigint) as quantity,
+                          cast(:revenue as double precision) as revenue, cast(:saleCount as bigint) as sale_count) d
+            on r.sale_date = d.sale_date and r.product_id = d.product_id
+            when matched then update
+                set quantity = r.quantity + d.quantity,
+                    revenue = r.revenue + d.revenue,
+                    sale_count = r.sale_count + d.sale_count
+            when not matched then insert (sale_date, product_id, category_id, quantity, revenue, sale_count)
+                values (d.sale_date, d.product_id, d.category_id, d.quantity, d.revenue, d.sale_count)
+            """, nativeQuery = true)
+    int merge(@Param("saleDate") LocalDate saleDate,
+              @Param("productId") Long productId,
+              @Param("categoryId") Long categoryId,
+              @Param("quantity") long quantity,
+              @Param("revenue") double revenue,
+              @Param("saleCount") long saleCount);
+
+    @Modifying
+    @Query("update DailySalesRollup r set r.categoryId = :categoryId where r.productId = :productId")
+    int updateCategory(@Param("productId") Long productId, @Param("categoryId") Long categoryId);
+
+    @Query("""
+            select r.productId as productId, r.categoryId as categoryId,
+                   sum(r.quantity) as quantity, sum(r.revenue) as revenue
+            from DailySalesRollup r
+            group by r.productId, r.categoryId
+            having sum(r.quantity) > 0
+            """)
+    List<ProductSalesTotal> sumByProduct();
+
+    @Query("""
+            select r.productId as productId, r.categoryId as categoryId,
+                   sum(r.quantity) as quantity, sum(r.revenue) as revenue
+            from DailySalesRollup r
+            where :categoryId is null or r.categoryId = :categoryId
+            group by r.productId, r.categoryId
+            having sum(r.quantity) > 0
+            order by sum(r.quantity) desc, r.productId
+            """)
+    List<ProductSalesTotal> findTopByQuantity(@Param("categoryId") Long categoryId, Limit limit);
+
+    @Query("""
+            select r.productId as productId, r.categoryId as categoryId,
+                   sum(r.quantity) as quantity, sum(r.revenue) as revenue
+            from DailySalesRollup r
+            where :categoryId is null or r.categoryId = :categoryId
+            group by r.productId, r.categoryId
+            having sum(r.quantity) > 0
+            order by sum(r.revenue) desc, r.productId
+            """)
+    List<ProductSalesTotal> findTopByRevenue(@Param("categoryId") Long categoryId, Limit limit);
+
+    @Query("""
+            select r.categoryId as categoryId, r.productId as productId, p.price as price,
+                   sum(r.quantity) as quantity, sum(r.revenue) as revenue
+            from DailySalesRollup r join Product p on p.id = r.productId
+            group by r.categoryId, r.productId, p.price
+            having sum(r.quantity) > 0
+            """)
+    List<CategoryProductTotal> sumByCategoryAndProduct();
+}
@@ -0,0 +1,47 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.DailySalesSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailySalesSummaryRepository extends JpaRepository<DailySalesSummary, LocalDate> {
+
+    List<DailySalesSummary> findAllByOrderBySaleDateAsc();
+
+    List<DailySalesSummary> findBySaleDateBetweenOrderBySaleDateAsc(LocalDate start, LocalDate end);
+
+    // PostgreSQL : insertion ou incrément en une instruction
+    @Modifying
+    @Query(value = """
+            insert into daily_sales_summary (sale_date, revenue, sale_count)
+            values (:saleDate, :revenue, :saleCount)
+            on conflict (sale_date) do update
+            set revenue = daily_sales_summary.revenue + excluded.revenue,
+                sale_count = daily_sales_summary.sale_count + excluded.sale_count
+            """, nativeQuery = true)
+    int upsert(@Param("saleDate") LocalDate saleDate,
+               @Param("revenue") double revenue,
+               @Param("saleCount") long saleCount);
+
+    // équivalent MERGE pour les bases sans "on conflict" (H2 en test)
+    @Modifying
+    @Query(value = """
+            merge into daily_sales_summary s
+            using (select cast(:saleDate as date) as sale_date, cast(:revenue as double precision) as revenue,
+                          cast(:saleCount as bigint) as sale_count) d
+            on s.sale_date = d.sale_date
+            when matched then update
+                set revenue = s.revenue + d.revenue,
+                    sale_count = s.sale_count + d.sale_count
+            when not matched then insert (sale_date, revenue, sale_count)
+                values (d.sale_date, d.revenue, d.sale_count)
+            """, nativeQuery = true)
+    int merge(@Param("saleDate") LocalDate saleDate,
+              @Param("revenue") double revenue,
+              @Param("saleCount") long saleCount);
+}
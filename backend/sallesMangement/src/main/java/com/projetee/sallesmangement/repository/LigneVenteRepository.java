@@ -1,7 +1,63 @@
 package com.projetee.sallesmangement.repository;
 
 import com.projetee.sallesmangement.entity.LigneVente;
+import com.projetee.sallesmangement.entity.SaleStatus;
+import com.projetee.sallesmangement.repository.projection.LabelRevenue;
+import com.projetee.sallesmangement.repository.projection.ProductDayTotal;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface LigneVenteRepository extends JpaRepository<LigneVente, Long> {
+
+    @Query("""
+            select c.name as label, sum(l.lineTotal) as revenue
+            from LigneVente l join l.product p join p.category c
+            where l.sale.status = :status
+            group by c.id, c.name
+            order by sum(l.lineTotal) desc, c.id
+            """)
+    List<LabelRevenue> findCategoryRevenueRanking(@Param("status") SaleStatus status, Limit limit);
+
+    // à CA égal, le plus petit id l'emporte (même règle que le tableau de bord)
+    @Query("""
+            select p.title as label, sum(l.lineTotal) as revenue
+            from LigneVente l join l.product p
+            where l.sale.status = :status
+            group by p.id, p.title
+            order by sum(l.lineTotal) desc, p.id
+            """)
+    List<LabelRevenue> findProductRevenueRanking(@Param("status") SaleStatus status, Limit limit);
+
+    @Query("""
+            select s.saleDate as saleDate, p.id as productId, c.id as categoryId,
+                   sum(l.quantity) as quantity, sum(l.lineTotal) as revenue, count(distinct s.id) as saleCount
+            from LigneVente l join l.sale s join l.product p join p.category c
+            where s.status = :status
+            group by s.saleDate, p.id, c.id
+            """)
+    List<ProductDayTotal> sumByDayAndProduct(@Param("status") SaleStatus status);
+
+    @Query("select l.sale.id from LigneVente l where l.id = :id")
+    Optional<Long> findSaleIdById(@Param("id") Long id);
+
+    // total d'une vente recalculé depuis ses lignes, pas par incrément en mémoire
+    @Query("select coalesce(sum(l.lineTotal), 0) from LigneVente l where l.sale.id = :saleId")
+    double sumLineTotalBySaleId(@Param("saleId") Long saleId);
+
+    // produit, catégorie, vente et vendeur joints : LigneVenteResponse sans chargement ligne par ligne
+    @Override
+    @EntityGraph(attributePaths = {"product.category", "sale.user"})
+    Page<LigneVente> findAll(Pageable pageable);
+
+    // pagination par curseur sur la clé primaire
+    @EntityGraph(attributePaths = {"product.category", "sale.user"})
+    List<LigneVente> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
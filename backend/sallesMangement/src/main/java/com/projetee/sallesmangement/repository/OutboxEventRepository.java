@@ -0,0 +1,34 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<OutboxEvent> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvent e")
+    long findLatestId();
+
+    @Query("select coalesce(min(e.id), 1) from OutboxEvent e")
+    long findOldestId();
+
+    // un évènement encore attendu par un écouteur (trou sauté puis commité) est gardé
+    @Modifying
+    @Query("""
+            delete from OutboxEvent e
+            where e.id <= :id and e.createdAt < :before
+              and e.id not in (select g.eventId from OutboxGap g)
+            """)
+    int deleteProcessed(@Param("id") long id, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,29 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.OutboxGap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxGapRepository extends JpaRepository<OutboxGap, Long> {
+
+    @Query("select g.eventId from OutboxGap g where g.listener = :listener order by g.eventId")
+    List<Long> findEventIdsByListener(@Param("listener") String listener);
+
+    long countByListener(String listener);
+
+    @Modifying
+    @Query("delete from OutboxGap g where g.listener = :listener and g.eventId in :eventIds")
+    int deleteByListenerAndEventIdIn(@Param("listener") String listener,
+                                     @Param("eventIds") Collection<Long> eventIds);
+
+    // un trou plus vieux que la rétention de l'outbox ne sera plus comblé : transaction annulée
+    @Modifying
+    @Query("delete from OutboxGap g where g.skippedAt < :before")
+    int deleteSkippedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,18 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.OutboxOffset;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+
+    // une seule instance distribue un écouteur donné à la fois
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OutboxOffset o where o.listener = :listener")
+    Optional<OutboxOffset> findForUpdate(@Param("listener") String listener);
+}
@@ -1,19 +1,99 @@
 package com.projetee.sallesmangement.repository;
 
 import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.entity.StockMovementReason;
+import com.projetee.sallesmangement.repository.projection.ProductSearchRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByCategoryId(Long categoryId);
 
+    List<Product> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // verrous pris dans l'ordre des ids, comme StockService.reserveAll
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id in :ids order by p.id")
+    List<Product> findForUpdateByIdIn(@Param("ids") Collection<Long> ids);
+
     boolean existsByTitleIgnoreCase(@NotBlank String title);
 
     boolean existsByTitleIgnoreCaseAndCategoryId(@NotBlank String title, @NotNull Long categoryId);
 
     boolean existsByAsinIgnoreCase(@NotBlank String asin);
+
+    // produits sans solde d'ouverture dans le journal, verrouillés pendant son calcul
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select p from Product p
+            where not exists (
+                select m.id from StockMovement m where m.productId = p.id and m.reason in :reasons
+            )
+            order by p.id
+            """)
+    List<Product> findWithoutStockMovementForUpdate(@Param("reasons") Collection<StockMovementReason> reasons);
+
+    // catégorie jointe : sinon une requête par catégorie distincte après la liste
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    @Query("select p from Product p join fetch p.category order by p.id")
+    Stream<Product> streamAll();
+
+    @EntityGraph(attributePaths = "category")
+    List<Product> findWithCategoryByIdIn(Collection<Long> ids);
+
+    // champs de l'index de recherche uniquement
+    @Query("""
+            select p.id as id, p.title as title, p.asin as asin,
+                   p.rating as rating, p.reviewCount as reviewCount, p.rank as rank
+            from Product p
+            """)
+    List<ProductSearchRow> findSearchRows();
+
+    @Query("""
+            select p.id as id, p.title as title, p.asin as asin,
+                   p.rating as rating, p.reviewCount as reviewCount, p.rank as rank
+            from Product p
+            where p.id = :id
+            """)
+    Optional<ProductSearchRow> findSearchRowById(@Param("id") Long id);
+
+    // pagination par curseur sur (title, id)
+    @Query("select p from Product p join fetch p.category order by p.title, p.id")
+    List<Product> findKeysetFirst(Limit limit);
+
+    @Query("""
+            select p from Product p join fetch p.category
+            where p.title > :title or (p.title = :title and p.id > :id)
+            order by p.title, p.id
+            """)
+    List<Product> findKeysetAfter(@Param("title") String title, @Param("id") Long id, Limit limit);
 }
@@ -1,11 +1,132 @@
 package com.projetee.sallesmangement.repository;
 
 import com.projetee.sallesmangement.entity.Sale;
+import com.projetee.sallesmangement.entity.SaleStatus;
+import com.projetee.sallesmangement.repository.projection.DayTotal;
+import com.projetee.sallesmangement.repository.projection.SaleAmount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SaleRepository extends JpaRepository<Sale, Long> {
 
     List<Sale> findByUserId(Long userId);
+
+    long countByStatus(SaleStatus status);
+
+    @Query("select coalesce(sum(s.totalAmount), 0) from Sale s where s.status = :status")
+    double sumTotalAmountByStatus(@Param("status") SaleStatus status);
+
+    @Query("""
+            select coalesce(sum(s.totalAmount), 0) from Sale s
+            where s.status = :status and s.saleDate between :start and :end
+            """)
+    double sumTotalAmountByStatusBetween(@Param("status") SaleStatus status,
+                                         @Param("start") LocalDate start,
+                                         @Param("end") LocalDate end);
+
+    @Query("""
+            select s.saleDate as saleDate, sum(s.totalAmount) as revenue, count(s) as saleCount
+            from Sale s
+            where s.status = :status
+            group by s.saleDate
+            """)
+    List<DayTotal> sumByDay(@Param("status") SaleStatus status);
+
+    @Query("select s.id as id, s.saleDate as saleDate, s.totalAmount as totalAmount from Sale s where s.status = :status")
+    List<SaleAmount> findAmountsByStatus(@Param("status") SaleStatus status);
+
+    @Query("select s.id from Sale s where s.id in :ids and s.status = :status order by s.id")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") SaleStatus status);
+
+    @Query("""
+            select s.id from Sale s
+            where s.status = :status
+              and s.saleDate between :start and :end
+              and (:userId is null or s.user.id = :userId)
+            order by s.id
+            """)
+    List<Long> findIdsByFilter(@Param("status") SaleStatus status,
+                               @Param("start") LocalDate start,
+                               @Param("end") LocalDate end,
+                               @Param("userId") Long userId,
+                               Limit limit);
+
+    // un seul UPDATE pour tout le lot ; la version change comme pour une annulation unitaire
+    @Modifying
+    @Query("update versioned Sale s set s.status = :to where s.id in :ids and s.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("from") SaleStatus from,
+                     @Param("to") SaleStatus to);
+
+    // lecture seule : ni instantané ni vérification des modifications au flush ;
+    // jointures externes : une vente dont toutes les lignes ont été supprimées est aussi rendue
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select distinct s from Sale s left join fetch s.lignesVente l left join fetch l.product where s.id in :ids")
+    List<Sale> findWithLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // pagination par curseur : du plus récent au plus ancien, id pour départager un même jour
+    @Query("select s.id from Sale s order by s.saleDate desc, s.id desc")
+    List<Long> findKeysetFirst(Limit limit);
+
+    @Query("""
+            select s.id from Sale s
+            where s.saleDate < :saleDate or (s.saleDate = :saleDate and s.id < :id)
+            order by s.saleDate desc, s.id desc
+            """)
+    List<Long> findKeysetAfter(@Param("saleDate") LocalDate saleDate, @Param("id") Long id, Limit limit);
+
+    @Query(value = "select s.id from Sale s order by s.id", countQuery = "select count(s) from Sale s")
+    Page<Long> findIdPage(Pageable pageable);
+
+    // lecture de SaleResponse : vendeur, lignes, produits et catégories chargés par la même requête
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            select distinct s from Sale s
+            join fetch s.user
+            left join fetch s.lignesVente l
+            left join fetch l.product p
+            left join fetch p.category
+            where s.id in :ids
+            """)
+    List<Sale> findForResponseByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            select distinct s from Sale s
+            join fetch s.user
+            left join fetch s.lignesVente l
+            left join fetch l.product p
+            left join fetch p.category
+            where s.id = :id
+            """)
+    Optional<Sale> findForResponseById(@Param("id") Long id);
+
+    // même graphe, lu en flux : les lignes d'une vente arrivent consécutives grâce au tri sur l'id
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500")
+    })
+    @Query("""
+            select s from Sale s
+            join fetch s.user
+            left join fetch s.lignesVente l
+            left join fetch l.product p
+            left join fetch p.category
+            order by s.id
+            """)
+    Stream<Sale> streamAllForResponse();
 }
@@ -0,0 +1,94 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.StockMovement;
+import com.projetee.sallesmangement.entity.StockMovementReason;
+import com.projetee.sallesmangement.repository.projection.ProductStockDelta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    Page<StockMovement> findByProductIdAndCreatedAtLessThanEqualOrderByCreatedAtDescIdDesc(
+            Long productId, LocalDateTime to, Pageable pageable);
+
+    Page<StockMovement> findByProductIdAndCreatedAtBetweenOrderByCreatedAtDescIdDesc(
+            Long productId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.productId = :productId and m.createdAt <= :to
+            group by m.productId
+            """)
+    Optional<ProductStockDelta> sumForProductUpTo(@Param("productId") Long productId,
+                                                  @Param("to") LocalDateTime to);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.productId = :productId and m.createdAt > :from and m.createdAt <= :to
+            group by m.productId
+            """)
+    Optional<ProductStockDelta> sumForProductBetween(@Param("productId") Long productId,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.createdAt <= :to
+            group by m.productId
+            """)
+    List<ProductStockDelta> sumByProductUpTo(@Param("to") LocalDateTime to);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.createdAt > :from and m.createdAt <= :to
+            group by m.productId
+            """)
+    List<ProductStockDelta> sumByProductBetween(@Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.productId in :productIds
+            group by m.productId
+            """)
+    List<ProductStockDelta> sumByProductIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.productId in :productIds and m.createdAt <= :to
+            group by m.productId
+            """)
+    List<ProductStockDelta> sumByProductInUpTo(@Param("productIds") Collection<Long> productIds,
+                                               @Param("to") LocalDateTime to);
+
+    @Query("""
+            select m.productId as productId, sum(m.delta) as delta, count(m) as movements
+            from StockMovement m
+            where m.productId in :productIds and m.createdAt > :from and m.createdAt <= :to
+            group by m.productId
+            """)
+    List<ProductStockDelta> sumByProductInBetween(@Param("productIds") Collection<Long> productIds,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    @Query("""
+            select distinct m.productId from StockMovement m
+            where m.productId in :productIds and m.reason in :reasons
+            """)
+    List<Long> findProductIdsWithReason(@Param("productIds") Collection<Long> productIds,
+                                        @Param("reasons") Collection<StockMovementReason> reasons);
+}
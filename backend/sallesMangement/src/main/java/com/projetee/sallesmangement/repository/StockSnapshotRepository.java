@@ -0,0 +1,27 @@
+package com.projetee.sallesmangement.repository;
+
+import com.projetee.sallesmangement.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findFirstByProductIdAndTakenAtLessThanEqualOrderByTakenAtDesc(
+            Long productId, LocalDateTime at);
+
+    @Query("select max(s.takenAt) from StockSnapshot s")
+    LocalDateTime findLatestTakenAt();
+
+    @Query("""
+            select s from StockSnapshot s
+            where s.productId in :productIds
+              and s.takenAt = (select max(s2.takenAt) from StockSnapshot s2 where s2.productId = s.productId)
+            """)
+    List<StockSnapshot> findLatestByProductIdIn(@Param("productIds") Collection<Long> productIds);
+}
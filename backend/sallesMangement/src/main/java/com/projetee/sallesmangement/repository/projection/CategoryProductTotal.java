@@ -0,0 +1,6 @@
+package com.projetee.sallesmangement.repository.projection;
+
+public interface CategoryProductTotal extends ProductSalesTotal {
+
+    Double getPrice();
+}
@@ -0,0 +1,8 @@
+package com.projetee.sallesmangement.repository.projection;
+
+public interface LabelRevenue {
+
+    String getLabel();
+
+    Double getRevenue();
+}
@@ -0,0 +1,18 @@
+package com.projetee.sallesmangement.repository.projection;
+
+import java.time.LocalDate;
+
+public interface ProductDayTotal {
+
+    LocalDate getSaleDate();
+
+    Long getProductId();
+
+    Long getCategoryId();
+
+    Long getQuantity();
+
+    Double getRevenue();
+
+    Long getSaleCount();
+}
@@ -0,0 +1,12 @@
+package com.projetee.sallesmangement.repository.projection;
+
+public interface ProductSalesTotal {
+
+    Long getProductId();
+
+    Long getCategoryId();
+
+    Long getQuantity();
+
+    Double getRevenue();
+}
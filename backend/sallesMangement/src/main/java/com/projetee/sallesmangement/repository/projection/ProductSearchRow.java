@@ -0,0 +1,16 @@
+package com.projetee.sallesmangement.repository.projection;
+
+public interface ProductSearchRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAsin();
+
+    Double getRating();
+
+    Integer getReviewCount();
+
+    Integer getRank();
+}
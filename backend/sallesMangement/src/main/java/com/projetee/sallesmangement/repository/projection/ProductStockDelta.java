@@ -0,0 +1,10 @@
+package com.projetee.sallesmangement.repository.projection;
+
+public interface ProductStockDelta {
+
+    Long getProductId();
+
+    Long getDelta();
+
+    Long getMovements();
+}
@@ -0,0 +1,12 @@
+package com.projetee.sallesmangement.repository.projection;
+
+import java.time.LocalDate;
+
+public interface SaleAmount {
+
+    Long getId();
+
+    LocalDate getSaleDate();
+
+    Double getTotalAmount();
+}
@@ -3,7 +3,9 @@ package com.projetee.sallesmangement.service;
 import com.projetee.sallesmangement.dto.analytics.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Set;
 
 public interface AnalyticsService {
 
@@ -11,9 +13,9 @@ public interface AnalyticsService {
 
     MonthlySalesResponse getMonthlySales();
 
-    List<DailySalesResponse> getDailySales(LocalDate startDate, LocalDate endDate);
+    List<DailySalesResponse> getDailySales(LocalDate startDate, LocalDate endDate, SalesGranularity granularity);
 
-    List<TopProductResponse> getBestSellers(int limit);
+    List<TopProductResponse> getBestSellers(int limit, BestSellerRanking rankBy, Long categoryId);
 
     List<SlowMoverResponse> getSlowMovers(long maxSoldThreshold, int limit);
 
@@ -23,5 +25,9 @@ public interface AnalyticsService {
 
     SalesEvolutionResponse getCurrentMonthEvolution();
 
-    BasketStatsResponse getBasketStats();
+    BasketStatsResponse getBasketStats(YearMonth from, YearMonth to);
+
+    DashboardResponse getDashboard(Set<DashboardWidget> widgets, int bestSellersLimit);
+
+    void rebuildRollup();
 }
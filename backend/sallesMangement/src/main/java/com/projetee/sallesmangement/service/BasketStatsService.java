@@ -0,0 +1,29 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.analytics.BasketStatsResponse;
+import com.projetee.sallesmangement.entity.Sale;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface BasketStatsService {
+
+    void recordBasket(Sale sale);
+
+    void recordBaskets(List<Sale> sales);
+
+    void removeBasket(Sale sale);
+
+    void removeBaskets(List<Sale> sales);
+
+    void replaceBasket(Sale sale, double previousTotal);
+
+    BasketStatsResponse getStats(YearMonth from, YearMonth to);
+
+    void prepareMonth(YearMonth month);
+
+    // shards vides alors que des ventes existent : table créée sur une base déjà remplie
+    boolean needsBackfill();
+
+    void rebuild();
+}
@@ -5,6 +5,8 @@ import com.projetee.sallesmangement.dto.category.CategoryResponse;
 import com.projetee.sallesmangement.dto.product.ProductResponse;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface CategoryService {
@@ -15,7 +17,7 @@ public interface CategoryService {
 
     CategoryResponse get(Long id);
 
-    List<CategoryResponse> getAll();
+    void writeAll(OutputStream out) throws IOException;
 
     Page<CategoryResponse> getPaginated(int page, int size, String sortBy);
 
@@ -2,14 +2,24 @@ package com.projetee.sallesmangement.service.Impl;
 
 import com.projetee.sallesmangement.dto.analytics.*;
 import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.exception.BadRequestException;
 import com.projetee.sallesmangement.mapper.AnalyticsMapper;
 import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.DailySalesRollupRepository;
+import com.projetee.sallesmangement.repository.DailySalesSummaryRepository;
 import com.projetee.sallesmangement.repository.LigneVenteRepository;
 import com.projetee.sallesmangement.repository.ProductRepository;
 import com.projetee.sallesmangement.repository.SaleRepository;
 import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.repository.projection.CategoryProductTotal;
+import com.projetee.sallesmangement.repository.projection.LabelRevenue;
+import com.projetee.sallesmangement.repository.projection.ProductSalesTotal;
 import com.projetee.sallesmangement.service.AnalyticsService;
+import com.projetee.sallesmangement.service.BasketStatsService;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import com.projetee.sallesmangement.service.analytics.TopK;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -21,31 +31,32 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AnalyticsServiceImpl implements AnalyticsService {
 
+    // meilleur produit : CA le plus haut, puis le plus petit id (ordre de findProductRevenueRanking)
+    private static final Comparator<CategoryProductTotal> BY_REVENUE = Comparator
+            .comparingDouble(CategoryProductTotal::getRevenue)
+            .thenComparing(CategoryProductTotal::getProductId, Comparator.reverseOrder());
+
     private final ProductRepository productRepo;
     private final CategoryRepository categoryRepo;
     private final UserRepository userRepo;
     private final SaleRepository saleRepo;
     private final LigneVenteRepository ligneRepo;
+    private final DailySalesRollupRepository rollupRepo;
+    private final DailySalesSummaryRepository summaryRepo;
+    private final SalesRollupService rollupService;
+    private final BasketStatsService basketStatsService;
     private final AnalyticsMapper mapper;
 
     @Override
     public KPIResponse getGlobalKPI() {
 
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .toList();
-
-        double totalRevenue = confirmedSales.stream()
-                .mapToDouble(Sale::getTotalAmount)
-                .sum();
-
-        long salesCount = confirmedSales.size();
+        // agrégats calculés côté base : le coût ne dépend plus du volume de ventes
+        double totalRevenue = saleRepo.sumTotalAmountByStatus(SaleStatus.CONFIRMED);
+        long salesCount = saleRepo.countByStatus(SaleStatus.CONFIRMED);
 
         YearMonth currentMonth = YearMonth.now();
-        double currentMonthRevenue = confirmedSales.stream()
-                .filter(s -> YearMonth.from(s.getSaleDate()).equals(currentMonth))
-                .mapToDouble(Sale::getTotalAmount)
-                .sum();
+        double currentMonthRevenue = saleRepo.sumTotalAmountByStatusBetween(
+                SaleStatus.CONFIRMED, currentMonth.atDay(1), currentMonth.atEndOfMonth());
 
         // panier moyen = CA total / nombre de ventes
         double averageBasket = salesCount == 0 ? 0.0 : totalRevenue / salesCount;
@@ -65,30 +76,15 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         String bestCategoryName = null;
         String bestProductTitle = null;
 
-        if (!confirmedSales.isEmpty()) {
-
-            Map<Category, Double> revenueByCategory = new HashMap<>();
-            Map<Product, Double> revenueByProduct = new HashMap<>();
-
-            for (Sale s : confirmedSales) {
-                for (LigneVente lv : s.getLignesVente()) {
-                    double amount = lv.getLineTotal();
-                    Product p = lv.getProduct();
-                    Category c = p.getCategory();
-
-                    revenueByProduct.merge(p, amount, Double::sum);
-                    revenueByCategory.merge(c, amount, Double::sum);
-                }
-            }
-
-            bestCategoryName = revenueByCategory.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(e -> e.getKey().getName())
+        if (salesCount > 0) {
+            bestCategoryName = ligneRepo.findCategoryRevenueRanking(SaleStatus.CONFIRMED, Limit.of(1)).stream()
+                    .findFirst()
+                    .map(LabelRevenue::getLabel)
                     .orElse(null);
 
-            bestProductTitle = revenueByProduct.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(e -> e.getKey().getTitle())
+            bestProductTitle = ligneRepo.findProductRevenueRanking(SaleStatus.CONFIRMED, Limit.of(1)).stream()
+                    .findFirst()
+                    .map(LabelRevenue::getLabel)
                     .orElse(null);
         }
 
@@ -106,120 +102,71 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public MonthlySalesResponse getMonthlySales() {
-
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .toList();
-
-        Map<YearMonth, Double> revenueByMonth = new HashMap<>();
-
-        for (Sale sale : confirmedSales) {
-            YearMonth ym = YearMonth.from(sale.getSaleDate());
-            revenueByMonth.merge(ym, sale.getTotalAmount(), Double::sum);
-        }
-
-        List<MonthlySalesResponse.MonthRevenue> list = revenueByMonth.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(entry -> {
-                    MonthlySalesResponse.MonthRevenue dto = new MonthlySalesResponse.MonthRevenue();
-                    dto.setMonth(entry.getKey().toString()); // ex : "2025-01"
-                    dto.setRevenue(entry.getValue());
-                    return dto;
-                })
-                .toList();
-
-        Map<String, Double> map = revenueByMonth.entrySet().stream()
-                .collect(Collectors.toMap(
-                        e -> e.getKey().toString(),
-                        Map.Entry::getValue
-                ));
-
-        MonthlySalesResponse response = new MonthlySalesResponse();
-        response.setList(list);
-        response.setMap(map);
-
-        return response;
+        return buildMonthlySales(summaryRepo.findAllByOrderBySaleDateAsc());
     }
 
     @Override
-    public List<DailySalesResponse> getDailySales(LocalDate startDate, LocalDate endDate) {
-
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .filter(s -> !s.getSaleDate().isBefore(startDate) && !s.getSaleDate().isAfter(endDate))
-                .toList();
-
-        Map<LocalDate, List<Sale>> byDate = confirmedSales.stream()
-                .collect(Collectors.groupingBy(Sale::getSaleDate));
+    public List<DailySalesResponse> getDailySales(LocalDate startDate, LocalDate endDate, SalesGranularity granularity) {
 
-        return byDate.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(entry -> {
-                    LocalDate date = entry.getKey();
-                    List<Sale> sales = entry.getValue();
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("start must be before end");
+        }
 
-                    double revenue = sales.stream()
-                            .mapToDouble(Sale::getTotalAmount)
-                            .sum();
+        // lecture par plage sur la clé primaire (sale_date) de daily_sales_summary
+        Map<LocalDate, DailySalesSummary> byBucket = new HashMap<>();
+        for (DailySalesSummary day : summaryRepo.findBySaleDateBetweenOrderBySaleDateAsc(startDate, endDate)) {
+            DailySalesSummary bucket = byBucket.computeIfAbsent(granularity.bucketStart(day.getSaleDate()),
+                    d -> new DailySalesSummary(d, 0, 0));
+            bucket.setRevenue(bucket.getRevenue() + day.getRevenue());
+            bucket.setSaleCount(bucket.getSaleCount() + day.getSaleCount());
+        }
 
-                    long count = sales.size();
+        // périodes sans vente complétées à zéro ; chaque période est datée de son premier jour
+        // dans la plage : la première commence à startDate, la dernière s'arrête à endDate
+        List<DailySalesResponse> result = new ArrayList<>();
+        for (LocalDate bucket = granularity.bucketStart(startDate);
+             !bucket.isAfter(endDate);
+             bucket = granularity.next(bucket)) {
+
+            LocalDate label = bucket.isBefore(startDate) ? startDate : bucket;
+            DailySalesSummary totals = byBucket.get(bucket);
+            result.add(totals == null
+                    ? mapper.toDailySalesResponse(label, 0.0, 0L)
+                    : mapper.toDailySalesResponse(label, totals.getRevenue(), totals.getSaleCount()));
+        }
 
-                    return mapper.toDailySalesResponse(date, revenue, count);
-                })
-                .toList();
+        return result;
     }
 
     @Override
-    public List<TopProductResponse> getBestSellers(int limit) {
-
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .toList();
+    public List<TopProductResponse> getBestSellers(int limit, BestSellerRanking rankBy, Long categoryId) {
 
-        Map<Product, Long> quantityByProduct = new HashMap<>();
-        Map<Product, Double> revenueByProduct = new HashMap<>();
+        // top-K calculé par la base (ORDER BY ... LIMIT k)
+        List<ProductSalesTotal> top = rankBy == BestSellerRanking.REVENUE
+                ? rollupRepo.findTopByRevenue(categoryId, Limit.of(limit))
+                : rollupRepo.findTopByQuantity(categoryId, Limit.of(limit));
 
-        for (Sale sale : confirmedSales) {
-            for (LigneVente lv : sale.getLignesVente()) {
-                Product p = lv.getProduct();
-                quantityByProduct.merge(p, (long) lv.getQuantity(), Long::sum);
-                revenueByProduct.merge(p, lv.getLineTotal(), Double::sum);
-            }
-        }
-
-        return quantityByProduct.entrySet().stream()
-                .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
-                .limit(limit)
-                .map(entry -> {
-                    Product product = entry.getKey();
-                    long qty = entry.getValue();
-                    double rev = revenueByProduct.getOrDefault(product, 0.0);
-                    return mapper.toTopProductResponse(product, qty, rev);
-                })
-                .toList();
+        return toTopProductResponses(top);
     }
 
     @Override
     public List<SlowMoverResponse> getSlowMovers(long maxSoldThreshold, int limit) {
 
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .toList();
+        // les k moins vendus : tas borné, du moins vendu vers le plus vendu
+        TopK<ProductSalesTotal> topK = new TopK<>(limit, Comparator
+                .comparingLong(ProductSalesTotal::getQuantity)
+                .thenComparing(ProductSalesTotal::getProductId)
+                .reversed());
+        rollupRepo.sumByProduct().stream()
+                .filter(t -> t.getQuantity() <= maxSoldThreshold)
+                .forEach(topK::offer);
 
-        Map<Product, Long> quantityByProduct = new HashMap<>();
+        List<ProductSalesTotal> slow = topK.toSortedList();
 
-        for (Sale sale : confirmedSales) {
-            for (LigneVente lv : sale.getLignesVente()) {
-                Product p = lv.getProduct();
-                quantityByProduct.merge(p, (long) lv.getQuantity(), Long::sum);
-            }
-        }
+        Map<Long, Product> products = loadProducts(slow);
 
-        return quantityByProduct.entrySet().stream()
-                .filter(e -> e.getValue() <= maxSoldThreshold)
-                .sorted(Map.Entry.comparingByValue()) // du plus vendu peu vers plus
-                .limit(limit)
-                .map(e -> mapper.toSlowMoverResponse(e.getKey(), e.getValue()))
+        return slow.stream()
+                .map(t -> mapper.toSlowMoverResponse(products.get(t.getProductId()), t.getQuantity()))
                 .toList();
     }
 
@@ -234,89 +181,118 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     @Override
     public List<CategoryStatsResponse> getCategoryStats() {
+        return buildCategoryStats(rollupRepo.sumByCategoryAndProduct());
+    }
 
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .toList();
+    @Override
+    public SalesEvolutionResponse getCurrentMonthEvolution() {
 
-        Map<Category, Double> revenueByCategory = new HashMap<>();
-        Map<Category, Long> quantityByCategory = new HashMap<>();
-        Map<Category, List<Product>> productsByCategory = new HashMap<>();
+        LocalDate previousMonthStart = YearMonth.now().minusMonths(1).atDay(1);
+        LocalDate currentMonthEnd = YearMonth.now().atEndOfMonth();
 
-        for (Sale sale : confirmedSales) {
-            for (LigneVente lv : sale.getLignesVente()) {
-                Product p = lv.getProduct();
-                Category c = p.getCategory();
+        return buildEvolution(summaryRepo.findBySaleDateBetweenOrderBySaleDateAsc(previousMonthStart, currentMonthEnd));
+    }
 
-                revenueByCategory.merge(c, lv.getLineTotal(), Double::sum);
-                quantityByCategory.merge(c, (long) lv.getQuantity(), Long::sum);
+    @Override
+    public BasketStatsResponse getBasketStats(YearMonth from, YearMonth to) {
+        return basketStatsService.getStats(from, to);
+    }
 
-                productsByCategory.computeIfAbsent(c, k -> new ArrayList<>()).add(p);
-            }
-        }
+    @Override
+    public DashboardResponse getDashboard(Set<DashboardWidget> widgets, int bestSellersLimit) {
 
-        List<CategoryStatsResponse> result = new ArrayList<>();
-
-        for (Category c : revenueByCategory.keySet()) {
-
-            double totalRevenue = revenueByCategory.getOrDefault(c, 0.0);
-            long totalSold = quantityByCategory.getOrDefault(c, 0L);
-
-            // prix moyen de la catégorie (moyenne des prix catalogue)
-            List<Product> productsInCategory = productsByCategory.getOrDefault(c, List.of());
-            double avgPrice = productsInCategory.isEmpty()
-                    ? 0.0
-                    : productsInCategory.stream()
-                    .mapToDouble(Product::getPrice)
-                    .average()
-                    .orElse(0.0);
-
-            // best seller de la catégorie (en CA)
-            Product bestSeller = null;
-            double bestRevenue = 0.0;
-
-            Map<Product, Double> revenueByProduct = new HashMap<>();
-            for (Sale sale : confirmedSales) {
-                for (LigneVente lv : sale.getLignesVente()) {
-                    Product p = lv.getProduct();
-                    if (p.getCategory().equals(c)) {
-                        revenueByProduct.merge(p, lv.getLineTotal(), Double::sum);
-                    }
-                }
-            }
+        // entrées partagées : chargées au plus une fois, seulement si un widget en a besoin
+        boolean needsDays = widgets.contains(DashboardWidget.KPI)
+                || widgets.contains(DashboardWidget.MONTHLY_SALES)
+                || widgets.contains(DashboardWidget.EVOLUTION);
+        boolean needsProducts = widgets.contains(DashboardWidget.KPI)
+                || widgets.contains(DashboardWidget.BEST_SELLERS)
+                || widgets.contains(DashboardWidget.CATEGORIES);
 
-            for (Map.Entry<Product, Double> entry : revenueByProduct.entrySet()) {
-                if (entry.getValue() > bestRevenue) {
-                    bestRevenue = entry.getValue();
-                    bestSeller = entry.getKey();
-                }
-            }
+        List<DailySalesSummary> days = needsDays ? summaryRepo.findAllByOrderBySaleDateAsc() : List.of();
+        List<CategoryProductTotal> productTotals = needsProducts ? rollupRepo.sumByCategoryAndProduct() : List.of();
+
+        DashboardResponse response = new DashboardResponse();
 
-            result.add(mapper.toCategoryStatsResponse(c, totalRevenue, totalSold, avgPrice, bestSeller));
+        List<CategoryStatsResponse> categories = null;
+        if (widgets.contains(DashboardWidget.CATEGORIES) || widgets.contains(DashboardWidget.KPI)) {
+            categories = buildCategoryStats(productTotals);
         }
 
-        return result;
+        if (widgets.contains(DashboardWidget.KPI)) {
+            response.setKpi(buildKpi(days, productTotals, categories));
+        }
+        if (widgets.contains(DashboardWidget.MONTHLY_SALES)) {
+            response.setMonthlySales(buildMonthlySales(days));
+        }
+        if (widgets.contains(DashboardWidget.BEST_SELLERS)) {
+            response.setBestSellers(buildBestSellers(productTotals, bestSellersLimit));
+        }
+        if (widgets.contains(DashboardWidget.CATEGORIES)) {
+            response.setCategories(categories);
+        }
+        if (widgets.contains(DashboardWidget.EVOLUTION)) {
+            response.setEvolution(buildEvolution(days));
+        }
+        if (widgets.contains(DashboardWidget.BASKET)) {
+            response.setBasket(getBasketStats(null, null));
+        }
+
+        return response;
     }
 
     @Override
-    public SalesEvolutionResponse getCurrentMonthEvolution() {
+    public void rebuildRollup() {
+        rollupService.rebuild();
+        basketStatsService.rebuild();
+    }
 
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
-                .toList();
+    private MonthlySalesResponse buildMonthlySales(List<DailySalesSummary> days) {
+
+        // trié par mois
+        Map<YearMonth, Double> revenueByMonth = new TreeMap<>();
+
+        for (DailySalesSummary day : days) {
+            revenueByMonth.merge(YearMonth.from(day.getSaleDate()), day.getRevenue(), Double::sum);
+        }
+
+        List<MonthlySalesResponse.MonthRevenue> list = new ArrayList<>(revenueByMonth.size());
+        Map<String, Double> map = new HashMap<>();
+
+        for (Map.Entry<YearMonth, Double> entry : revenueByMonth.entrySet()) {
+            String month = entry.getKey().toString(); // ex : "2025-01"
+            double revenue = entry.getValue();
+
+            MonthlySalesResponse.MonthRevenue dto = new MonthlySalesResponse.MonthRevenue();
+            dto.setMonth(month);
+            dto.setRevenue(revenue);
+            list.add(dto);
+            map.put(month, revenue);
+        }
+
+        MonthlySalesResponse response = new MonthlySalesResponse();
+        response.setList(list);
+        response.setMap(map);
+
+        return response;
+    }
+
+    private SalesEvolutionResponse buildEvolution(List<DailySalesSummary> days) {
 
         YearMonth current = YearMonth.now();
         YearMonth previous = current.minusMonths(1);
 
-        double currentRev = confirmedSales.stream()
-                .filter(s -> YearMonth.from(s.getSaleDate()).equals(current))
-                .mapToDouble(Sale::getTotalAmount)
-                .sum();
+        double currentRev = 0.0;
+        double previousRev = 0.0;
 
-        double previousRev = confirmedSales.stream()
-                .filter(s -> YearMonth.from(s.getSaleDate()).equals(previous))
-                .mapToDouble(Sale::getTotalAmount)
-                .sum();
+        for (DailySalesSummary day : days) {
+            YearMonth ym = YearMonth.from(day.getSaleDate());
+            if (ym.equals(current)) {
+                currentRev += day.getRevenue();
+            } else if (ym.equals(previous)) {
+                previousRev += day.getRevenue();
+            }
+        }
 
         double growth = previousRev == 0 ? 0.0 : ((currentRev - previousRev) / previousRev) * 100.0;
 
@@ -328,39 +304,140 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         return dto;
     }
 
-    @Override
-    public BasketStatsResponse getBasketStats() {
+    private List<TopProductResponse> buildBestSellers(List<? extends ProductSalesTotal> totals, int limit) {
+
+        // tas min borné : O(n log k) sur les totaux déjà chargés
+        TopK<ProductSalesTotal> topK = new TopK<>(limit, Comparator
+                .comparingLong(ProductSalesTotal::getQuantity)
+                .thenComparing(ProductSalesTotal::getProductId, Comparator.reverseOrder()));
+        totals.forEach(topK::offer);
 
-        List<Sale> confirmedSales = saleRepo.findAll().stream()
-                .filter(s -> s.getStatus() == SaleStatus.CONFIRMED)
+        return toTopProductResponses(topK.toSortedList());
+    }
+
+    private List<TopProductResponse> toTopProductResponses(List<ProductSalesTotal> top) {
+
+        Map<Long, Product> products = loadProducts(top);
+
+        return top.stream()
+                .map(t -> mapper.toTopProductResponse(products.get(t.getProductId()), t.getQuantity(), t.getRevenue()))
                 .toList();
+    }
+
+    private List<CategoryStatsResponse> buildCategoryStats(List<CategoryProductTotal> totals) {
+
+        // une seule passe sur les totaux (catégorie, produit) : CA, quantité,
+        // prix moyen des produits distincts et best seller en même temps
+        Map<Long, CategoryTotals> byCategory = new LinkedHashMap<>();
+
+        for (CategoryProductTotal t : totals) {
+            byCategory.computeIfAbsent(t.getCategoryId(), id -> new CategoryTotals()).add(t);
+        }
 
-        int n = confirmedSales.size();
-        if (n == 0) {
-            BasketStatsResponse dto = new BasketStatsResponse();
-            dto.setAverageBasket(0.0);
-            dto.setVariance(0.0);
-            dto.setStandardDeviation(0.0);
-            return dto;
+        if (byCategory.isEmpty()) {
+            return List.of();
         }
 
-        double[] amounts = confirmedSales.stream()
-                .mapToDouble(Sale::getTotalAmount)
-                .toArray();
+        Map<Long, Category> categories = categoryRepo.findAllById(byCategory.keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, c -> c));
+
+        List<Long> bestSellerIds = byCategory.values().stream()
+                .map(c -> c.bestSellerId)
+                .toList();
+        Map<Long, Product> bestSellers = productRepo.findAllById(bestSellerIds).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+
+        List<CategoryStatsResponse> result = new ArrayList<>(byCategory.size());
 
-        double mean = Arrays.stream(amounts).average().orElse(0.0);
+        byCategory.forEach((categoryId, t) -> result.add(mapper.toCategoryStatsResponse(
+                categories.get(categoryId),
+                t.revenue,
+                t.quantity,
+                t.averagePrice(),
+                bestSellers.get(t.bestSellerId))));
 
-        double variance = Arrays.stream(amounts)
-                .map(x -> (x - mean) * (x - mean))
-                .sum() / n;
+        return result;
+    }
 
-        double stdDev = Math.sqrt(variance);
+    private KPIResponse buildKpi(List<DailySalesSummary> days,
+                                 List<CategoryProductTotal> productTotals,
+                                 List<CategoryStatsResponse> categories) {
 
-        BasketStatsResponse dto = new BasketStatsResponse();
-        dto.setAverageBasket(mean);
-        dto.setVariance(variance);
-        dto.setStandardDeviation(stdDev);
+        YearMonth currentMonth = YearMonth.now();
 
-        return dto;
+        double totalRevenue = 0.0;
+        double currentMonthRevenue = 0.0;
+        long salesCount = 0;
+
+        for (DailySalesSummary day : days) {
+            totalRevenue += day.getRevenue();
+            salesCount += day.getSaleCount();
+            if (YearMonth.from(day.getSaleDate()).equals(currentMonth)) {
+                currentMonthRevenue += day.getRevenue();
+            }
+        }
+
+        KPIResponse.Totals totals = new KPIResponse.Totals();
+        totals.setProducts(productRepo.count());
+        totals.setCategories(categoryRepo.count());
+        totals.setUsers(userRepo.count());
+
+        KPIResponse.Sales sales = new KPIResponse.Sales();
+        sales.setSalesCount(salesCount);
+        sales.setTotalRevenue(totalRevenue);
+        sales.setCurrentMonthRevenue(currentMonthRevenue);
+        sales.setAverageBasket(salesCount == 0 ? 0.0 : totalRevenue / salesCount);
+
+        KPIResponse.Performance performance = new KPIResponse.Performance();
+        // mêmes règles que getGlobalKPI : CA le plus haut, puis le plus petit id
+        performance.setBestCategory(categories.stream()
+                .max(Comparator.comparingDouble(CategoryStatsResponse::getTotalRevenue)
+                        .thenComparing(CategoryStatsResponse::getCategoryId, Comparator.reverseOrder()))
+                .map(CategoryStatsResponse::getCategoryName)
+                .orElse(null));
+        performance.setBestSellerProduct(productTotals.stream()
+                .max(BY_REVENUE)
+                .flatMap(t -> productRepo.findById(t.getProductId()))
+                .map(Product::getTitle)
+                .orElse(null));
+
+        KPIResponse response = new KPIResponse();
+        response.setTotals(totals);
+        response.setSales(sales);
+        response.setPerformance(performance);
+
+        return response;
+    }
+
+    private static final class CategoryTotals {
+
+        private double revenue;
+        private long quantity;
+        private double priceSum;
+        private int productCount;
+        private Long bestSellerId;
+        private CategoryProductTotal bestSeller;
+
+        void add(CategoryProductTotal t) {
+            revenue += t.getRevenue();
+            quantity += t.getQuantity();
+            priceSum += t.getPrice();
+            productCount++;
+
+            if (bestSeller == null || BY_REVENUE.compare(t, bestSeller) > 0) {
+                bestSeller = t;
+                bestSellerId = t.getProductId();
+            }
+        }
+
+        double averagePrice() {
+            return productCount == 0 ? 0.0 : priceSum / productCount;
+        }
+    }
+
+    private Map<Long, Product> loadProducts(List<? extends ProductSalesTotal> totals) {
+        List<Long> ids = totals.stream().map(ProductSalesTotal::getProductId).toList();
+        return productRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
     }
 }
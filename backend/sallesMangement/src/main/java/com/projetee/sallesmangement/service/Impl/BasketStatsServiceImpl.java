@@ -0,0 +1,254 @@
+package com.projetee.sallesmangement.service.Impl;
+
+import com.projetee.sallesmangement.dto.analytics.BasketStatsResponse;
+import com.projetee.sallesmangement.entity.BasketStatsShard;
+import com.projetee.sallesmangement.entity.Sale;
+import com.projetee.sallesmangement.entity.SaleStatus;
+import com.projetee.sallesmangement.repository.BasketStatsShardRepository;
+import com.projetee.sallesmangement.repository.SaleRepository;
+import com.projetee.sallesmangement.repository.projection.SaleAmount;
+import com.projetee.sallesmangement.service.BasketStatsService;
+import com.projetee.sallesmangement.service.analytics.QuantileSketch;
+import com.projetee.sallesmangement.service.analytics.RunningStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+@Service
+public class BasketStatsServiceImpl implements BasketStatsService {
+
+    static final int SHARDS = 8;
+
+    private final BasketStatsShardRepository shardRepo;
+    private final SaleRepository saleRepo;
+    private final TransactionTemplate newTransaction;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public BasketStatsServiceImpl(BasketStatsShardRepository shardRepo,
+                                  SaleRepository saleRepo,
+                                  PlatformTransactionManager transactionManager,
+                                  JdbcTemplate jdbcTemplate,
+                                  EntityManagerFactory entityManagerFactory) {
+        this.shardRepo = shardRepo;
+        this.saleRepo = saleRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBasket(Sale sale) {
+        update(sale, (stats, sketch) -> {
+            stats.add(sale.getTotalAmount());
+            sketch.add(sale.getTotalAmount());
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBaskets(List<Sale> sales) {
+        groupByShard(sales).forEach((key, amounts) -> update(key, (stats, sketch) -> {
+            for (double amount : amounts) {
+                stats.add(amount);
+                sketch.add(amount);
+            }
+        }));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeBaskets(List<Sale> sales) {
+        groupByShard(sales).forEach((key, amounts) -> update(key, (stats, sketch) -> {
+            for (double amount : amounts) {
+                stats.remove(amount);
+                sketch.remove(amount);
+            }
+        }));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeBasket(Sale sale) {
+        update(sale, (stats, sketch) -> {
+            stats.remove(sale.getTotalAmount());
+            sketch.remove(sale.getTotalAmount());
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replaceBasket(Sale sale, double previousTotal) {
+        update(sale, (stats, sketch) -> {
+            stats.remove(previousTotal);
+            sketch.remove(previousTotal);
+            stats.add(sale.getTotalAmount());
+            sketch.add(sale.getTotalAmount());
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BasketStatsResponse getStats(YearMonth from, YearMonth to) {
+
+        LocalDate start = from == null ? LocalDate.of(1, 1, 1) : from.atDay(1);
+        LocalDate end = to == null ? LocalDate.of(9999, 12, 1) : to.atDay(1);
+
+        RunningStats stats = new RunningStats();
+        QuantileSketch sketch = new QuantileSketch();
+
+        for (BasketStatsShard shard : shardRepo.findByIdMonthStartBetween(start, end)) {
+            stats.merge(new RunningStats(shard.getSaleCount(), shard.getMean(), shard.getM2()));
+            sketch.merge(QuantileSketch.fromBytes(shard.getSketch()));
+        }
+
+        double variance = stats.variance();
+
+        BasketStatsResponse dto = new BasketStatsResponse();
+        dto.setCount(stats.getCount());
+        dto.setAverageBasket(stats.getMean());
+        dto.setVariance(variance);
+        dto.setStandardDeviation(Math.sqrt(variance));
+        dto.setMedian(sketch.quantile(0.5));
+        dto.setP90(sketch.quantile(0.9));
+        dto.setP99(sketch.quantile(0.99));
+        return dto;
+    }
+
+    @Override
+    @Transactional
+    public void prepareMonth(YearMonth month) {
+        // shards vides créés d'avance : évite la création concurrente en pleine vente
+        for (int shard = 0; shard < SHARDS; shard++) {
+            BasketStatsShard.Key key = new BasketStatsShard.Key(month.atDay(1), shard);
+            if (!shardRepo.existsById(key)) {
+                shardRepo.save(toShard(key, new RunningStats(), new QuantileSketch()));
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean needsBackfill() {
+        return shardRepo.sumSaleCount() == 0 && saleRepo.countByStatus(SaleStatus.CONFIRMED) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void rebuild() {
+
+        // shards verrouillés avant la relecture des ventes : une vente qui tient déjà un shard
+        // est commitée avant, et comptée ; les suivantes attendent et s'ajoutent au résultat.
+        // Sur PostgreSQL, le verrou de table bloque aussi la création d'un shard manquant
+        if (isPostgres()) {
+            jdbcTemplate.execute("lock table basket_stats_shard in exclusive mode");
+        } else {
+            shardRepo.findAllForUpdate();
+        }
+
+        Map<BasketStatsShard.Key, RunningStats> stats = new HashMap<>();
+        Map<BasketStatsShard.Key, QuantileSketch> sketches = new HashMap<>();
+
+        for (SaleAmount sale : saleRepo.findAmountsByStatus(SaleStatus.CONFIRMED)) {
+            BasketStatsShard.Key key = keyOf(sale.getId(), sale.getSaleDate());
+            stats.computeIfAbsent(key, k -> new RunningStats()).add(sale.getTotalAmount());
+            sketches.computeIfAbsent(key, k -> new QuantileSketch()).add(sale.getTotalAmount());
+        }
+
+        shardRepo.deleteAllInBatch();
+
+        shardRepo.saveAll(stats.entrySet().stream()
+                .map(e -> toShard(e.getKey(), e.getValue(), sketches.get(e.getKey())))
+                .toList());
+
+        prepareMonth(YearMonth.now());
+    }
+
+    private static Map<BasketStatsShard.Key, List<Double>> groupByShard(List<Sale> sales) {
+
+        // un verrou et une réécriture du sketch par shard touché, pas par vente ;
+        // shards verrouillés dans un ordre fixe
+        Map<BasketStatsShard.Key, List<Double>> byShard = new TreeMap<>(
+                Comparator.comparing(BasketStatsShard.Key::getMonthStart)
+                        .thenComparingInt(BasketStatsShard.Key::getShard));
+
+        for (Sale sale : sales) {
+            byShard.computeIfAbsent(keyOf(sale.getId(), sale.getSaleDate()), k -> new ArrayList<>())
+                    .add(sale.getTotalAmount());
+        }
+        return byShard;
+    }
+
+    private void update(Sale sale, BiConsumer<RunningStats, QuantileSketch> change) {
+        update(keyOf(sale.getId(), sale.getSaleDate()), change);
+    }
+
+    private void update(BasketStatsShard.Key key, BiConsumer<RunningStats, QuantileSketch> change) {
+
+        BasketStatsShard shard = lockShard(key);
+
+        RunningStats stats = new RunningStats(shard.getSaleCount(), shard.getMean(), shard.getM2());
+        QuantileSketch sketch = QuantileSketch.fromBytes(shard.getSketch());
+
+        change.accept(stats, sketch);
+
+        shard.setSaleCount(stats.getCount());
+        shard.setMean(stats.getMean());
+        shard.setM2(stats.getM2());
+        shard.setSketch(sketch.toBytes());
+    }
+
+    private BasketStatsShard lockShard(BasketStatsShard.Key key) {
+
+        return shardRepo.findForUpdate(key).orElseGet(() -> {
+            // normalement créée d'avance (prepareMonth) ; sinon création dans une transaction
+            // séparée : si un autre thread l'a créée entre-temps, la clé primaire le signale
+            try {
+                newTransaction.executeWithoutResult(status ->
+                        shardRepo.save(toShard(key, new RunningStats(), new QuantileSketch())));
+            } catch (DataIntegrityViolationException ignored) {
+                // déjà créée par une transaction concurrente
+            }
+            return shardRepo.findForUpdate(key).orElseThrow();
+        });
+    }
+
+    private boolean isPostgres() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    private static BasketStatsShard.Key keyOf(Long saleId, LocalDate saleDate) {
+        return new BasketStatsShard.Key(saleDate.withDayOfMonth(1), (int) Math.floorMod(saleId, (long) SHARDS));
+    }
+
+    private static BasketStatsShard toShard(BasketStatsShard.Key key, RunningStats stats, QuantileSketch sketch) {
+        return BasketStatsShard.builder()
+                .id(key)
+                .saleCount(stats.getCount())
+                .mean(stats.getMean())
+                .m2(stats.getM2())
+                .sketch(sketch.toBytes())
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.projetee.sallesmangement.service.Impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.projetee.sallesmangement.dto.analytics.*;
+import com.projetee.sallesmangement.event.CategoryChangedEvent;
+import com.projetee.sallesmangement.event.ProductChangedEvent;
+import com.projetee.sallesmangement.event.SalesChangedEvent;
+import com.projetee.sallesmangement.event.UserChangedEvent;
+import com.projetee.sallesmangement.service.AnalyticsService;
+import com.projetee.sallesmangement.service.analytics.AnalyticsCache;
+import com.projetee.sallesmangement.service.analytics.AnalyticsCacheKey;
+import com.projetee.sallesmangement.service.analytics.AnalyticsCacheKey.Endpoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Cache devant {@link AnalyticsServiceImpl}. Les entrées sont invalidées
+ * après commit, uniquement pour les endpoints concernés par l'évènement.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+public class CachedAnalyticsService implements AnalyticsService {
+
+    // types des copies relues depuis le cache
+    private static final TypeReference<KPIResponse> KPI = new TypeReference<>() {};
+    private static final TypeReference<MonthlySalesResponse> MONTHLY_SALES = new TypeReference<>() {};
+    private static final TypeReference<List<DailySalesResponse>> DAILY_SALES = new TypeReference<>() {};
+    private static final TypeReference<List<TopProductResponse>> TOP_PRODUCTS = new TypeReference<>() {};
+    private static final TypeReference<List<SlowMoverResponse>> SLOW_MOVERS = new TypeReference<>() {};
+    private static final TypeReference<List<LowStockResponse>> LOW_STOCK = new TypeReference<>() {};
+    private static final TypeReference<List<CategoryStatsResponse>> CATEGORY_STATS = new TypeReference<>() {};
+    private static final TypeReference<SalesEvolutionResponse> EVOLUTION = new TypeReference<>() {};
+    private static final TypeReference<BasketStatsResponse> BASKET_STATS = new TypeReference<>() {};
+    private static final TypeReference<DashboardResponse> DASHBOARD = new TypeReference<>() {};
+
+    private final AnalyticsServiceImpl delegate;
+    private final AnalyticsCache cache;
+
+    @Override
+    public KPIResponse getGlobalKPI() {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.KPI), KPI, delegate::getGlobalKPI);
+    }
+
+    @Override
+    public MonthlySalesResponse getMonthlySales() {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.MONTHLY_SALES), MONTHLY_SALES, delegate::getMonthlySales);
+    }
+
+    @Override
+    public List<DailySalesResponse> getDailySales(LocalDate startDate, LocalDate endDate, SalesGranularity granularity) {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.DAILY_SALES, startDate, endDate, granularity), DAILY_SALES,
+                () -> delegate.getDailySales(startDate, endDate, granularity));
+    }
+
+    @Override
+    public List<TopProductResponse> getBestSellers(int limit, BestSellerRanking rankBy, Long categoryId) {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.BEST_SELLERS, limit, rankBy, categoryId), TOP_PRODUCTS,
+                () -> delegate.getBestSellers(limit, rankBy, categoryId));
+    }
+
+    @Override
+    public List<SlowMoverResponse> getSlowMovers(long maxSoldThreshold, int limit) {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.SLOW_MOVERS, maxSoldThreshold, limit), SLOW_MOVERS,
+                () -> delegate.getSlowMovers(maxSoldThreshold, limit));
+    }
+
+    @Override
+    public List<LowStockResponse> getLowStockProducts(int stockThreshold) {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.LOW_STOCK, stockThreshold), LOW_STOCK,
+                () -> delegate.getLowStockProducts(stockThreshold));
+    }
+
+    @Override
+    public List<CategoryStatsResponse> getCategoryStats() {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.CATEGORY_STATS), CATEGORY_STATS, delegate::getCategoryStats);
+    }
+
+    @Override
+    public SalesEvolutionResponse getCurrentMonthEvolution() {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.CURRENT_MONTH_EVOLUTION), EVOLUTION,
+                delegate::getCurrentMonthEvolution);
+    }
+
+    @Override
+    public BasketStatsResponse getBasketStats(YearMonth from, YearMonth to) {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.BASKET_STATS, from, to), BASKET_STATS,
+                () -> delegate.getBasketStats(from, to));
+    }
+
+    @Override
+    public DashboardResponse getDashboard(Set<DashboardWidget> widgets, int bestSellersLimit) {
+        return cache.get(AnalyticsCacheKey.of(Endpoint.DASHBOARD, new TreeSet<>(widgets), bestSellersLimit), DASHBOARD,
+                () -> delegate.getDashboard(widgets, bestSellersLimit));
+    }
+
+    @Override
+    public void rebuildRollup() {
+        delegate.rebuildRollup();
+        cache.clear();
+    }
+
+
+    // avant les autres écouteurs (flux KPI) qui relisent le cache
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        cache.evictIf(key -> key.coversAny(event.saleDates()));
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.evictIf(key -> key.endpoint().isProductDependent());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache.evictIf(key -> key.endpoint().isCategoryDependent());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cache.evictIf(key -> key.endpoint().isUserDependent());
+    }
+}
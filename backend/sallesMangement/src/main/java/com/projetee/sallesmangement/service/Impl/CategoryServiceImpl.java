@@ -5,6 +5,7 @@ import com.projetee.sallesmangement.dto.category.CategoryResponse;
 import com.projetee.sallesmangement.dto.product.ProductResponse;
 import com.projetee.sallesmangement.entity.Category;
 import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.event.CategoryChangedEvent;
 import com.projetee.sallesmangement.exception.BadRequestException;
 import com.projetee.sallesmangement.exception.DuplicateResourceException;
 import com.projetee.sallesmangement.exception.ResourceNotFoundException;
@@ -13,10 +14,15 @@ import com.projetee.sallesmangement.mapper.ProductMapper;
 import com.projetee.sallesmangement.repository.CategoryRepository;
 import com.projetee.sallesmangement.repository.ProductRepository;
 import com.projetee.sallesmangement.service.CategoryService;
+import com.projetee.sallesmangement.service.streaming.JsonArrayStreamer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 @Service
@@ -27,6 +33,8 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryMapper mapper;
     private final ProductRepository productRepo;
     private final ProductMapper productMapper;
+    private final JsonArrayStreamer jsonStreamer;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public CategoryResponse create(CategoryRequest request) {
@@ -37,6 +45,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         Category saved = repo.save(mapper.toEntity(request));
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
         return mapper.toResponse(saved);
     }
 
@@ -48,10 +57,9 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
-    public List<CategoryResponse> getAll() {
-        return repo.findAll().stream()
-                .map(mapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public void writeAll(OutputStream out) throws IOException {
+        jsonStreamer.write(repo.streamAll(), mapper::toResponse, out);
     }
 
     @Override
@@ -79,6 +87,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setDescription(request.getDescription());
 
         Category saved = repo.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
         return mapper.toResponse(saved);
     }
 
@@ -93,6 +102,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         repo.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
     @Override
     public List<ProductResponse> getProductsByCategory(Long categoryId) {
@@ -1,21 +1,34 @@
 package com.projetee.sallesmangement.service.Impl;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteResponse;
 import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.event.SalesChangedEvent;
 import com.projetee.sallesmangement.exception.BadRequestException;
 import com.projetee.sallesmangement.exception.ResourceNotFoundException;
 import com.projetee.sallesmangement.mapper.LigneVenteMapper;
 import com.projetee.sallesmangement.repository.LigneVenteRepository;
 import com.projetee.sallesmangement.repository.ProductRepository;
 import com.projetee.sallesmangement.repository.SaleRepository;
+import com.projetee.sallesmangement.service.BasketStatsService;
 import com.projetee.sallesmangement.service.LigneVenteService;
+import com.projetee.sallesmangement.service.OutboxService;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import com.projetee.sallesmangement.service.StockLedgerService;
+import com.projetee.sallesmangement.service.StockService;
+import com.projetee.sallesmangement.service.lock.StripedLocks;
+import com.projetee.sallesmangement.service.pagination.Cursors;
+import com.projetee.sallesmangement.service.retry.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
+@DependsOn("sequenceInitializer")
 @RequiredArgsConstructor
 public class LigneVenteServiceImpl implements LigneVenteService {
 
@@ -23,10 +36,46 @@ public class LigneVenteServiceImpl implements LigneVenteService {
     private final ProductRepository productRepo;
     private final SaleRepository saleRepo;
     private final LigneVenteMapper mapper;
-
+    private final StockService stockService;
+    private final StockLedgerService ledgerService;
+    private final SalesRollupService rollupService;
+    private final BasketStatsService basketStatsService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLocks saleLocks;
+
+    // verrou de la vente pris avant la transaction et rendu après le commit :
+    // l'édition suivante de la même vente attend puis lit l'état validé
     @Override
-    @Transactional
+    @RetryOnConflict
     public LigneVenteResponse addLine(Long saleId, LigneVenteRequest request) {
+        return saleLocks.withLock(saleId,
+                () -> transactionTemplate.execute(status -> doAddLine(saleId, request)));
+    }
+
+    @Override
+    @RetryOnConflict
+    public LigneVenteResponse updateLine(Long lineId, LigneVenteRequest request) {
+        return saleLocks.withLock(saleIdOfLine(lineId),
+                () -> transactionTemplate.execute(status -> doUpdateLine(lineId, request)));
+    }
+
+    @Override
+    @RetryOnConflict
+    public void deleteLine(Long id) {
+        saleLocks.withLock(saleIdOfLine(id), () -> {
+            transactionTemplate.executeWithoutResult(status -> doDeleteLine(id));
+            return null;
+        });
+    }
+
+    private Long saleIdOfLine(Long lineId) {
+        return ligneRepo.findSaleIdById(lineId)
+                .orElseThrow(() -> new ResourceNotFoundException("Line not found"));
+    }
+
+    private LigneVenteResponse doAddLine(Long saleId, LigneVenteRequest request) {
 
         Sale sale = saleRepo.findById(saleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Sale not found"));
@@ -42,13 +91,10 @@ public class LigneVenteServiceImpl implements LigneVenteService {
             throw new BadRequestException("Quantity must be > 0");
         }
 
-        if (product.getStock() < request.getQuantity()) {
+        if (!stockService.reserve(product.getId(), request.getQuantity())) {
             throw new BadRequestException("Not enough stock");
         }
 
-        product.setStock(product.getStock() - request.getQuantity());
-        productRepo.save(product);
-
         LigneVente lv = new LigneVente();
         lv.setSale(sale);
         lv.setProduct(product);
@@ -57,16 +103,24 @@ public class LigneVenteServiceImpl implements LigneVenteService {
         lv.setLineTotal(product.getPrice() * request.getQuantity());
 
         sale.getLignesVente().add(lv);
-        sale.setTotalAmount(sale.getTotalAmount() + lv.getLineTotal());
+        ligneRepo.save(lv);
+        ledgerService.recordLine(lv, -lv.getQuantity(), StockMovementReason.LINE_ADD);
+
+        double previousSaleTotal = sale.getTotalAmount();
+        sale.setTotalAmount(ligneRepo.sumLineTotalBySaleId(sale.getId()));
 
         saleRepo.save(sale);
+        // la vente n'entre dans le compte du produit que s'il n'y figurait pas encore
+        rollupService.recordLineChange(sale, product, lv.getQuantity(), lv.getLineTotal(),
+                hasOtherLine(sale, lv, product) ? 0 : 1);
+        basketStatsService.replaceBasket(sale, previousSaleTotal);
+        outboxService.lineChanged(lv, lv.getQuantity(), lv.getLineTotal(), previousSaleTotal);
+        eventPublisher.publishEvent(SalesChangedEvent.of(sale.getSaleDate()));
 
         return mapper.toResponse(lv);
     }
 
-    @Override
-    @Transactional
-    public LigneVenteResponse updateLine(Long lineId, LigneVenteRequest request) {
+    private LigneVenteResponse doUpdateLine(Long lineId, LigneVenteRequest request) {
 
         LigneVente lv = ligneRepo.findById(lineId)
                 .orElseThrow(() -> new ResourceNotFoundException("Line not found"));
@@ -82,30 +136,39 @@ public class LigneVenteServiceImpl implements LigneVenteService {
             throw new BadRequestException("Quantity must be > 0");
         }
 
-        product.setStock(product.getStock() + lv.getQuantity());
-
-        if (product.getStock() < request.getQuantity()) {
+        // seul l'écart de quantité touche le stock
+        int quantityDelta = request.getQuantity() - lv.getQuantity();
+        if (quantityDelta > 0 && !stockService.reserve(product.getId(), quantityDelta)) {
             throw new BadRequestException("Not enough stock to update");
         }
+        if (quantityDelta < 0) {
+            stockService.release(product.getId(), -quantityDelta);
+        }
+        if (quantityDelta != 0) {
+            ledgerService.recordLine(lv, -quantityDelta, StockMovementReason.LINE_UPDATE);
+        }
 
-        product.setStock(product.getStock() - request.getQuantity());
-        productRepo.save(product);
-
-        sale.setTotalAmount(sale.getTotalAmount() - lv.getLineTotal());
+        double previousSaleTotal = sale.getTotalAmount();
+        int previousQuantity = lv.getQuantity();
+        double previousTotal = lv.getLineTotal();
 
         lv.setQuantity(request.getQuantity());
         lv.setLineTotal(product.getPrice() * request.getQuantity());
 
-        sale.setTotalAmount(sale.getTotalAmount() + lv.getLineTotal());
+        sale.setTotalAmount(ligneRepo.sumLineTotalBySaleId(sale.getId()));
 
         saleRepo.save(sale);
+        rollupService.recordLineChange(sale, product,
+                lv.getQuantity() - previousQuantity, lv.getLineTotal() - previousTotal, 0);
+        basketStatsService.replaceBasket(sale, previousSaleTotal);
+        outboxService.lineChanged(lv, lv.getQuantity() - previousQuantity, lv.getLineTotal() - previousTotal,
+                previousSaleTotal);
+        eventPublisher.publishEvent(SalesChangedEvent.of(sale.getSaleDate()));
 
         return mapper.toResponse(lv);
     }
 
-    @Override
-    @Transactional
-    public void deleteLine(Long id) {
+    private void doDeleteLine(Long id) {
 
         LigneVente lv = ligneRepo.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Line not found"));
@@ -117,13 +180,28 @@ public class LigneVenteServiceImpl implements LigneVenteService {
             throw new BadRequestException("Cannot delete line: sale is cancelled");
         }
 
-        product.setStock(product.getStock() + lv.getQuantity());
-        productRepo.save(product);
+        stockService.release(product.getId(), lv.getQuantity());
+        ledgerService.recordLine(lv, lv.getQuantity(), StockMovementReason.LINE_DELETE);
 
-        sale.setTotalAmount(sale.getTotalAmount() - lv.getLineTotal());
+        double previousSaleTotal = sale.getTotalAmount();
 
+        // retirée aussi de la collection : sinon la cascade de la vente la ferait persister à nouveau
+        sale.getLignesVente().remove(lv);
         ligneRepo.delete(lv);
+        sale.setTotalAmount(ligneRepo.sumLineTotalBySaleId(sale.getId()));
+
         saleRepo.save(sale);
+        // la vente ne sort du compte du produit qu'avec sa dernière ligne de ce produit
+        rollupService.recordLineChange(sale, product, -lv.getQuantity(), -lv.getLineTotal(),
+                hasOtherLine(sale, lv, product) ? 0 : -1);
+        basketStatsService.replaceBasket(sale, previousSaleTotal);
+        outboxService.lineChanged(lv, -lv.getQuantity(), -lv.getLineTotal(), previousSaleTotal);
+        eventPublisher.publishEvent(SalesChangedEvent.of(sale.getSaleDate()));
+    }
+
+    private static boolean hasOtherLine(Sale sale, LigneVente line, Product product) {
+        return sale.getLignesVente().stream()
+                .anyMatch(other -> other != line && other.getProduct().getId().equals(product.getId()));
     }
 
     @Override
@@ -138,4 +216,14 @@ public class LigneVenteServiceImpl implements LigneVenteService {
         Pageable pageable = PageRequest.of(page, size);
         return ligneRepo.findAll(pageable).map(mapper::toResponse);
     }
+
+    // pagination par curseur sur la clé primaire
+    @Override
+    public CursorPageResponse<LigneVenteResponse> getAfter(String after, int size, boolean includeTotal) {
+        Limit limit = Cursors.limit(size);
+        long afterId = after == null || after.isBlank() ? 0L : Cursors.decode(after).id();
+        return Cursors.page(ligneRepo.findByIdGreaterThanOrderByIdAsc(afterId, limit), size, mapper::toResponse,
+                l -> Cursors.encode(l.getId()),
+                includeTotal ? ligneRepo.count() : null);
+    }
 }
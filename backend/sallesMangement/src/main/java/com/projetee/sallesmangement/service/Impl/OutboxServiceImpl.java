@@ -0,0 +1,98 @@
+package com.projetee.sallesmangement.service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projetee.sallesmangement.dto.outbox.SaleEventLine;
+import com.projetee.sallesmangement.dto.outbox.SaleEventPayload;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.OutboxEventRepository;
+import com.projetee.sallesmangement.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Écrit les évènements de vente dans l'outbox, dans la transaction de la vente :
+ * un évènement existe si et seulement si la modification a été commitée.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxEventRepository outboxRepo;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saleCreated(List<Sale> sales) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepo.saveAll(sales.stream()
+                .map(sale -> event(OutboxEventType.SALE_CREATED, wholeSale(sale, 1), now))
+                .toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void salesCancelled(List<Sale> sales) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepo.saveAll(sales.stream()
+                .map(sale -> event(OutboxEventType.SALE_CANCELLED, wholeSale(sale, -1), now))
+                .toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saleDeleted(Sale sale) {
+        // une vente déjà annulée ne retire plus rien des ventes
+        int sign = sale.getStatus() == SaleStatus.CONFIRMED ? -1 : 0;
+        SaleEventPayload payload = sign == 0 ? header(sale) : wholeSale(sale, sign);
+        outboxRepo.save(event(OutboxEventType.SALE_DELETED, payload, LocalDateTime.now()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lineChanged(LigneVente line, int quantityDelta, double amountDelta, double previousSaleTotal) {
+        Sale sale = line.getSale();
+        SaleEventPayload payload = header(sale);
+        payload.setTotalDelta(sale.getTotalAmount() - previousSaleTotal);
+        payload.getLines().add(new SaleEventLine(line.getId(), line.getProduct().getId(), quantityDelta, amountDelta));
+        outboxRepo.save(event(OutboxEventType.LINE_CHANGED, payload, LocalDateTime.now()));
+    }
+
+    private static SaleEventPayload wholeSale(Sale sale, int sign) {
+        SaleEventPayload payload = header(sale);
+        payload.setTotalDelta(sign * sale.getTotalAmount());
+        for (LigneVente lv : sale.getLignesVente()) {
+            payload.getLines().add(new SaleEventLine(lv.getId(), lv.getProduct().getId(),
+                    sign * lv.getQuantity(), sign * lv.getLineTotal()));
+        }
+        return payload;
+    }
+
+    private static SaleEventPayload header(Sale sale) {
+        SaleEventPayload payload = new SaleEventPayload();
+        payload.setSaleId(sale.getId());
+        payload.setUserId(sale.getUser().getId());
+        payload.setSaleDate(sale.getSaleDate());
+        payload.setStatus(sale.getStatus());
+        payload.setTotalAmount(sale.getTotalAmount());
+        return payload;
+    }
+
+    private OutboxEvent event(OutboxEventType type, SaleEventPayload payload, LocalDateTime now) {
+        try {
+            return OutboxEvent.builder()
+                    .type(type)
+                    .saleId(payload.getSaleId())
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(now)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.projetee.sallesmangement.service.Impl;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.product.ProductRequest;
 import com.projetee.sallesmangement.dto.product.ProductResponse;
 import com.projetee.sallesmangement.entity.Category;
 import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.event.ProductChangedEvent;
 import com.projetee.sallesmangement.exception.BadRequestException;
 import com.projetee.sallesmangement.exception.DuplicateResourceException;
 import com.projetee.sallesmangement.exception.ResourceNotFoundException;
@@ -11,22 +13,44 @@ import com.projetee.sallesmangement.mapper.ProductMapper;
 import com.projetee.sallesmangement.repository.CategoryRepository;
 import com.projetee.sallesmangement.repository.ProductRepository;
 import com.projetee.sallesmangement.service.ProductService;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import com.projetee.sallesmangement.service.StockLedgerService;
+import com.projetee.sallesmangement.service.pagination.Cursors;
+import com.projetee.sallesmangement.service.retry.RetryOnConflict;
+import com.projetee.sallesmangement.service.search.ProductSearchIndex;
+import com.projetee.sallesmangement.service.streaming.JsonArrayStreamer;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final ProductRepository repo;
     private final CategoryRepository categoryRepo;
     private final ProductMapper mapper;
+    private final SalesRollupService rollupService;
+    private final StockLedgerService ledgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonArrayStreamer jsonStreamer;
+    private final ProductSearchIndex searchIndex;
 
     @Override
+    @Transactional
     public ProductResponse create(ProductRequest request) {
 
         // Vérifier catégorie
@@ -52,6 +76,8 @@ public class ProductServiceImpl implements ProductService {
         product.setCategory(category);
 
         Product saved = repo.save(product);
+        ledgerService.recordInitial(saved);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
 
         return mapper.toResponse(saved);
     }
@@ -64,8 +90,30 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<ProductResponse> getAll() {
-        return repo.findAll().stream()
+    @Transactional(readOnly = true)
+    public void writeAll(OutputStream out) throws IOException {
+        jsonStreamer.write(repo.streamAll(), mapper::toResponse, out);
+    }
+
+    // classement fait par l'index ; la base ne sert qu'à charger les produits retenus
+    @Override
+    public List<ProductResponse> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        List<Long> ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = repo.findWithCategoryByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // un produit supprimé entre-temps est simplement ignoré
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .map(mapper::toResponse)
                 .toList();
     }
@@ -79,7 +127,25 @@ public class ProductServiceImpl implements ProductService {
                 .map(mapper::toResponse);
     }
 
+    // pagination par curseur sur (title, id)
+    @Override
+    public CursorPageResponse<ProductResponse> getAfter(String after, int size, boolean includeTotal) {
+        Limit limit = Cursors.limit(size);
+        List<Product> rows;
+        if (after == null || after.isBlank()) {
+            rows = repo.findKeysetFirst(limit);
+        } else {
+            Cursors.Key key = Cursors.decode(after);
+            rows = repo.findKeysetAfter(key.text(), key.id(), limit);
+        }
+        return Cursors.page(rows, size, mapper::toResponse,
+                p -> Cursors.encode(p.getId(), p.getTitle()),
+                includeTotal ? repo.count() : null);
+    }
+
     @Override
+    @Transactional
+    @RetryOnConflict
     public ProductResponse update(Long id, ProductRequest request) {
 
         Product product = repo.findById(id)
@@ -110,9 +176,17 @@ public class ProductServiceImpl implements ProductService {
         product.setRating(request.getRating());
         product.setReviewCount(request.getReviewCount());
         product.setRank(request.getRank());
+
+        // garder la projection des ventes alignée sur la nouvelle catégorie
+        if (!product.getCategory().getId().equals(category.getId())) {
+            rollupService.updateProductCategory(product.getId(), category.getId());
+        }
         product.setCategory(category);
 
-        return mapper.toResponse(repo.save(product));
+        Product saved = repo.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+
+        return mapper.toResponse(saved);
     }
 
     @Override
@@ -131,5 +205,6 @@ public class ProductServiceImpl implements ProductService {
 //        }
 
         repo.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 }
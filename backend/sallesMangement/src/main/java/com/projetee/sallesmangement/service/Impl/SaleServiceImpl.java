@@ -1,120 +1,356 @@
 package com.projetee.sallesmangement.service.Impl;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleBatchResponse;
+import com.projetee.sallesmangement.dto.sale.SaleBatchResult;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelRequest;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelResponse;
 import com.projetee.sallesmangement.dto.sale.SaleRequest;
 import com.projetee.sallesmangement.dto.sale.SaleResponse;
 import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.event.SalesChangedEvent;
 import com.projetee.sallesmangement.exception.BadRequestException;
 import com.projetee.sallesmangement.exception.ResourceNotFoundException;
 import com.projetee.sallesmangement.mapper.SaleMapper;
 import com.projetee.sallesmangement.repository.ProductRepository;
 import com.projetee.sallesmangement.repository.SaleRepository;
 import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.service.BasketStatsService;
+import com.projetee.sallesmangement.service.OutboxService;
 import com.projetee.sallesmangement.service.SaleService;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import com.projetee.sallesmangement.service.StockLedgerService;
+import com.projetee.sallesmangement.service.StockService;
+import com.projetee.sallesmangement.service.pagination.Cursors;
+import com.projetee.sallesmangement.service.retry.ConflictRetrier;
+import com.projetee.sallesmangement.service.retry.RetryOnConflict;
+import com.projetee.sallesmangement.service.streaming.JsonArrayStreamer;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
+@DependsOn("sequenceInitializer")
 @RequiredArgsConstructor
 public class SaleServiceImpl implements SaleService {
 
+    private static final String CHUNK_FAILED = "Batch chunk rolled back, sale not created";
+
     private final SaleRepository saleRepo;
     private final UserRepository userRepo;
     private final ProductRepository productRepo;
     private final SaleMapper saleMapper;
+    private final StockService stockService;
+    private final StockLedgerService ledgerService;
+    private final SalesRollupService rollupService;
+    private final BasketStatsService basketStatsService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetrier conflictRetrier;
+    private final JsonArrayStreamer jsonStreamer;
+
+    @Value("${sales.batch.max-size:5000}")
+    private int batchMaxSize;
+
+    // une tranche garde ses produits verrouillés jusqu'au commit : petite, elle ne bloque
+    // les caisses que quelques ms ; alignée sur hibernate.jdbc.batch_size (un batch par table)
+    @Value("${sales.batch.chunk-size:50}")
+    private int batchChunkSize;
+
+    @Value("${sales.bulk-cancel.max-size:10000}")
+    private int bulkCancelMaxSize;
+
+    // ventes annulées par transaction : la tranche garde ventes et produits verrouillés jusqu'à son commit
+    @Value("${sales.bulk-cancel.chunk-size:200}")
+    private int bulkCancelChunkSize;
 
     @Override
     @Transactional
+    @RetryOnConflict
     public SaleResponse create(SaleRequest request) {
 
         User user = userRepo.findById(request.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        if (user.getRole() != Role.ADMIN && user.getRole() != Role.VENDEUR) {
-            throw new BadRequestException("User not allowed to create sales");
+        checkCanCreateSales(user);
+
+        Sale sale = buildSale(user, request.getLignes(), loadProducts(List.of(request)));
+
+        Sale saved = saleRepo.save(sale);
+        ledgerService.recordSales(List.of(saved), StockMovementReason.SALE);
+        rollupService.recordSale(saved);
+        basketStatsService.recordBasket(saved);
+        outboxService.saleCreated(List.of(saved));
+        eventPublisher.publishEvent(SalesChangedEvent.of(saved.getSaleDate()));
+
+        return saleMapper.toResponse(saved);
+    }
+
+    @Override
+    public SaleBatchResponse createBatch(List<SaleRequest> requests) {
+
+        if (requests.size() > batchMaxSize) {
+            throw new BadRequestException("Too many sales in batch (max " + batchMaxSize + ")");
         }
 
-        Sale sale = new Sale();
-        sale.setSaleDate(LocalDate.now());
-        sale.setUser(user);
-        sale.setStatus(SaleStatus.CONFIRMED);
-        sale.setTotalAmount(0.0);
-        sale.setLignesVente(new ArrayList<>());
+        SaleBatchResult[] results = new SaleBatchResult[requests.size()];
+
+        // une transaction par tranche : une erreur technique n'annule que sa tranche,
+        // et une tranche perdue sur un conflit (deadlock, verrou) est rejouée en entier
+        for (int from = 0; from < requests.size(); from += batchChunkSize) {
+            int start = from;
+            int end = Math.min(from + batchChunkSize, requests.size());
+            try {
+                conflictRetrier.execute("SaleServiceImpl.createBatch", () -> transactionTemplate.execute(status -> {
+                    createChunk(requests, start, end, results);
+                    return null;
+                }));
+            } catch (RuntimeException e) {
+                log.error("Sale batch chunk [{}, {}) rolled back", start, end, e);
+                for (int i = start; i < end; i++) {
+                    results[i] = SaleBatchResult.rolledBack(i, CHUNK_FAILED);
+                }
+            }
+        }
 
-        double total = 0;
+        SaleBatchResponse response = new SaleBatchResponse();
+        response.setReceived(results.length);
+        response.setResults(Arrays.asList(results));
+        response.setCreated((int) response.getResults().stream().filter(SaleBatchResult::isSuccess).count());
+        response.setFailed(results.length - response.getCreated());
+        return response;
+    }
 
-        for (LigneVenteRequest lineReq : request.getLignes()) {
+    private void createChunk(List<SaleRequest> requests, int start, int end, SaleBatchResult[] results) {
 
-            Product product = productRepo.findById(lineReq.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        List<SaleRequest> chunk = requests.subList(start, end);
 
-            if (lineReq.getQuantity() <= 0) {
-                throw new BadRequestException("Quantity must be > 0");
+        // utilisateurs et produits de toute la tranche chargés en deux requêtes
+        Map<Long, User> users = userRepo.findAllById(chunk.stream()
+                        .map(SaleRequest::getUserId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        // produits de la tranche verrouillés d'emblée, dans l'ordre des ids : les réservations
+        // vente par vente ne prennent plus de nouveau verrou, dans un ordre qui suivrait la requête
+        Map<Long, Product> products = byId(productRepo.findForUpdateByIdIn(productIds(chunk)));
+
+        List<Sale> sales = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+
+        for (int i = start; i < end; i++) {
+            try {
+                sales.add(buildBatchSale(requests.get(i), users, products));
+                indexes.add(i);
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                results[i] = SaleBatchResult.failed(i, e.getMessage());
             }
+        }
 
-            if (product.getStock() < lineReq.getQuantity()) {
-                throw new BadRequestException("Not enough stock for product: " + product.getTitle());
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        // ids tirés de la séquence au persist : les INSERT partent en batch au commit
+        saleRepo.saveAll(sales);
+        ledgerService.recordSales(sales, StockMovementReason.SALE);
+        rollupService.recordSales(sales);
+        basketStatsService.recordBaskets(sales);
+        outboxService.saleCreated(sales);
+        eventPublisher.publishEvent(new SalesChangedEvent(sales.stream()
+                .map(Sale::getSaleDate)
+                .collect(Collectors.toSet())));
+
+        for (int k = 0; k < sales.size(); k++) {
+            Sale sale = sales.get(k);
+            results[indexes.get(k)] = SaleBatchResult.created(indexes.get(k), sale.getId(), sale.getTotalAmount());
+        }
+    }
+
+    private Sale buildBatchSale(SaleRequest request, Map<Long, User> users, Map<Long, Product> products) {
+
+        // mêmes règles que create(), sur les entités déjà chargées
+        User user = users.get(request.getUserId());
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        checkCanCreateSales(user);
+
+        return buildSale(user, request.getLignes(), products);
+    }
+
+    private Map<Long, Product> loadProducts(List<SaleRequest> requests) {
+        return byId(productRepo.findByIdInOrderByIdAsc(productIds(requests)));
+    }
+
+    private static Set<Long> productIds(List<SaleRequest> requests) {
+        return requests.stream()
+                .filter(r -> r.getLignes() != null)
+                .flatMap(r -> r.getLignes().stream())
+                .map(LigneVenteRequest::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private static Map<Long, Product> byId(List<Product> products) {
+        return products.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    private Sale buildSale(User user, List<LigneVenteRequest> lines, Map<Long, Product> products) {
+
+        if (lines == null) {
+            throw new BadRequestException("Sale lines are required");
+        }
+
+        // tout est validé en mémoire avant la première écriture ;
+        // plusieurs lignes d'un même produit deviennent une seule ligne
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (LigneVenteRequest lineReq : lines) {
+            if (!products.containsKey(lineReq.getProductId())) {
+                throw new ResourceNotFoundException("Product not found");
             }
+            if (lineReq.getQuantity() == null || lineReq.getQuantity() <= 0) {
+                throw new BadRequestException("Quantity must be > 0");
+            }
+            quantities.merge(lineReq.getProductId(), lineReq.getQuantity(), Integer::sum);
+        }
 
-            product.setStock(product.getStock() - lineReq.getQuantity());
-            productRepo.save(product);
+        // un seul aller-retour pour tout le stock ; rien n'est réservé si un produit manque
+        List<Long> outOfStock = stockService.reserveAll(quantities);
+        if (!outOfStock.isEmpty()) {
+            throw new BadRequestException("Not enough stock for product: " + products.get(outOfStock.get(0)).getTitle());
+        }
 
-            LigneVente lv = new LigneVente();
-            lv.setSale(sale);
-            lv.setProduct(product);
-            lv.setQuantity(lineReq.getQuantity());
-            lv.setUnitPrice(product.getPrice());
-            lv.setLineTotal(product.getPrice() * lineReq.getQuantity());
+        Sale sale = newSale(user);
+        quantities.forEach((productId, quantity) -> addLine(sale, products.get(productId), quantity));
+        return sale;
+    }
 
-            sale.getLignesVente().add(lv);
-            total += lv.getLineTotal();
+    private static void checkCanCreateSales(User user) {
+        if (user.getRole() != Role.ADMIN && user.getRole() != Role.VENDEUR) {
+            throw new BadRequestException("User not allowed to create sales");
         }
+    }
 
-        sale.setTotalAmount(total);
-        Sale saved = saleRepo.save(sale);
+    private static Sale newSale(User user) {
+        Sale sale = new Sale();
+        sale.setSaleDate(LocalDate.now());
+        sale.setUser(user);
+        sale.setStatus(SaleStatus.CONFIRMED);
+        sale.setTotalAmount(0.0);
+        sale.setLignesVente(new ArrayList<>());
+        return sale;
+    }
 
-        return saleMapper.toResponse(saved);
+    private static void addLine(Sale sale, Product product, int quantity) {
+        LigneVente lv = new LigneVente();
+        lv.setSale(sale);
+        lv.setProduct(product);
+        lv.setQuantity(quantity);
+        lv.setUnitPrice(product.getPrice());
+        lv.setLineTotal(product.getPrice() * quantity);
+
+        sale.getLignesVente().add(lv);
+        sale.setTotalAmount(sale.getTotalAmount() + lv.getLineTotal());
     }
 
     @Override
     public SaleResponse get(Long id) {
-        Sale sale = saleRepo.findById(id)
+        Sale sale = saleRepo.findForResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Sale not found"));
         return saleMapper.toResponse(sale);
     }
 
     @Override
-    public List<SaleResponse> getAll() {
-        return saleRepo.findAll()
-                .stream()
-                .map(saleMapper::toResponse)
-                .toList();
+    @Transactional
+    public void writeAll(OutputStream out) throws IOException {
+        jsonStreamer.write(saleRepo.streamAllForResponse(), saleMapper::toResponse, out);
     }
 
+    // ids de la page d'abord (la pagination SQL ne s'applique pas à un fetch de collection), puis le graphe
     @Override
     public Page<SaleResponse> getPaginated(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        return saleRepo.findAll(pageable)
-                .map(saleMapper::toResponse);
+        Page<Long> ids = saleRepo.findIdPage(pageable);
+        List<SaleResponse> content = loadForResponse(ids.getContent()).stream()
+                .map(saleMapper::toResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    // pagination par curseur sur (sale_date desc, id desc) : pas d'OFFSET, pas de COUNT par défaut
+    @Override
+    public CursorPageResponse<SaleResponse> getAfter(String after, int size, boolean includeTotal) {
+        Limit limit = Cursors.limit(size);
+        List<Long> ids;
+        if (after == null || after.isBlank()) {
+            ids = saleRepo.findKeysetFirst(limit);
+        } else {
+            Cursors.Key key = Cursors.decode(after);
+            ids = saleRepo.findKeysetAfter(key.date(), key.id(), limit);
+        }
+        return Cursors.page(loadForResponse(ids), size, saleMapper::toResponse,
+                s -> Cursors.encode(s.getId(), s.getSaleDate()),
+                includeTotal ? saleRepo.count() : null);
+    }
+
+    // une requête pour toutes les ventes de la page, rendues dans l'ordre des ids
+    private List<Sale> loadForResponse(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Sale> byId = saleRepo.findForResponseByIdIn(ids).stream()
+                .collect(Collectors.toMap(Sale::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public void delete(Long id) {
         Sale sale = saleRepo.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Sale not found"));
+
+        if (sale.getStatus() == SaleStatus.CONFIRMED) {
+            rollupService.revertSale(sale);
+            basketStatsService.removeBasket(sale);
+        }
+
+        outboxService.saleDeleted(sale);
         saleRepo.delete(sale);
+        eventPublisher.publishEvent(SalesChangedEvent.of(sale.getSaleDate()));
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public SaleResponse cancel(Long id) {
 
         Sale sale = saleRepo.findById(id)
@@ -124,15 +360,130 @@ public class SaleServiceImpl implements SaleService {
             throw new BadRequestException("Sale already cancelled");
         }
 
+        Map<Long, Integer> quantities = new HashMap<>();
         for (LigneVente lv : sale.getLignesVente()) {
-            Product p = lv.getProduct();
-            p.setStock(p.getStock() + lv.getQuantity());
-            productRepo.save(p);
+            quantities.merge(lv.getProduct().getId(), lv.getQuantity(), Integer::sum);
         }
+        stockService.releaseAll(quantities);
+        ledgerService.recordSales(List.of(sale), StockMovementReason.SALE_CANCEL);
+
+        rollupService.revertSale(sale);
+        basketStatsService.removeBasket(sale);
 
         sale.setStatus(SaleStatus.CANCELLED);
         saleRepo.save(sale);
+        outboxService.salesCancelled(List.of(sale));
+        eventPublisher.publishEvent(SalesChangedEvent.of(sale.getSaleDate()));
 
         return saleMapper.toResponse(sale);
     }
+
+    @Override
+    public SaleBulkCancelResponse cancelBulk(SaleBulkCancelRequest request) {
+
+        List<Long> ids = findSalesToCancel(request);
+        SaleBulkCancelResponse response = new SaleBulkCancelResponse();
+
+        if (request.getSaleIds() != null) {
+            Set<Long> found = new HashSet<>(ids);
+            response.setSkippedIds(request.getSaleIds().stream()
+                    .filter(id -> !found.contains(id))
+                    .distinct()
+                    .toList());
+        }
+
+        List<Long> failedIds = new ArrayList<>();
+
+        // une transaction par tranche, comme createBatch : verrous des ventes et des produits
+        // rendus à chaque commit, une tranche en échec n'annule pas celles déjà validées
+        for (int from = 0; from < ids.size(); from += bulkCancelChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkCancelChunkSize, ids.size()));
+            try {
+                long[] done = conflictRetrier.execute("SaleServiceImpl.cancelBulk",
+                        () -> transactionTemplate.execute(status -> cancelChunk(chunk)));
+                response.setCancelled(response.getCancelled() + (int) done[0]);
+                response.setRestoredQuantity(response.getRestoredQuantity() + done[1]);
+            } catch (RuntimeException e) {
+                log.error("Bulk cancellation chunk of {} sales starting at id {} rolled back", chunk.size(), chunk.get(0), e);
+                failedIds.addAll(chunk);
+            }
+        }
+
+        response.setFailed(failedIds.size());
+        if (!failedIds.isEmpty()) {
+            response.setFailedIds(failedIds);
+        }
+        return response;
+    }
+
+    // renvoie { ventes annulées, quantité rendue } pour la tranche
+    private long[] cancelChunk(List<Long> chunk) {
+
+        // relue à chaque tentative : une vente annulée entre-temps par ailleurs est simplement ignorée
+        List<Long> ids = saleRepo.findIdsByIdInAndStatus(chunk, SaleStatus.CONFIRMED);
+        if (ids.isEmpty()) {
+            return new long[]{0, 0};
+        }
+
+        // statut basculé en premier : les lignes des ventes restent verrouillées jusqu'au commit,
+        // une annulation ou une modification concurrente échoue sur la version
+        if (saleRepo.updateStatus(ids, SaleStatus.CONFIRMED, SaleStatus.CANCELLED) != ids.size()) {
+            throw new OptimisticLockingFailureException("Sales modified during bulk cancellation");
+        }
+
+        // ventes et lignes relues en une requête, après la bascule de statut
+        List<Sale> sales = saleRepo.findWithLinesByIdIn(ids);
+
+        // stock rendu par produit, en un seul batch trié par id ; la tranche ne verrouille
+        // ses produits qu'une fois, dans le même ordre que reserveAll
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Sale sale : sales) {
+            for (LigneVente lv : sale.getLignesVente()) {
+                quantities.merge(lv.getProduct().getId(), lv.getQuantity(), Integer::sum);
+            }
+        }
+        stockService.releaseAll(quantities);
+
+        ledgerService.recordSales(sales, StockMovementReason.SALE_CANCEL);
+        rollupService.revertSales(sales);
+        basketStatsService.removeBaskets(sales);
+        outboxService.salesCancelled(sales);
+        eventPublisher.publishEvent(new SalesChangedEvent(sales.stream()
+                .map(Sale::getSaleDate)
+                .collect(Collectors.toSet())));
+
+        return new long[]{ids.size(), quantities.values().stream().mapToLong(Integer::longValue).sum()};
+    }
+
+    private List<Long> findSalesToCancel(SaleBulkCancelRequest request) {
+
+        boolean byIds = request.getSaleIds() != null;
+        boolean byFilter = request.getFrom() != null || request.getTo() != null || request.getUserId() != null;
+
+        if (byIds == byFilter) {
+            throw new BadRequestException("Provide either saleIds or a filter (from, to, userId)");
+        }
+
+        if (byIds) {
+            if (request.getSaleIds().size() > bulkCancelMaxSize) {
+                throw new BadRequestException("Too many sales to cancel (max " + bulkCancelMaxSize + ")");
+            }
+            return request.getSaleIds().isEmpty()
+                    ? List.of()
+                    : saleRepo.findIdsByIdInAndStatus(request.getSaleIds(), SaleStatus.CONFIRMED);
+        }
+
+        LocalDate start = request.getFrom() == null ? LocalDate.of(1, 1, 1) : request.getFrom();
+        LocalDate end = request.getTo() == null ? LocalDate.of(9999, 12, 31) : request.getTo();
+        if (start.isAfter(end)) {
+            throw new BadRequestException("from must be before to");
+        }
+
+        List<Long> ids = saleRepo.findIdsByFilter(SaleStatus.CONFIRMED, start, end, request.getUserId(),
+                Limit.of(bulkCancelMaxSize + 1));
+        if (ids.size() > bulkCancelMaxSize) {
+            throw new BadRequestException("Too many sales match the filter (max " + bulkCancelMaxSize + ")");
+        }
+        return ids;
+    }
 }
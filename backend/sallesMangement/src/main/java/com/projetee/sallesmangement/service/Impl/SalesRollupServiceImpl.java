@@ -0,0 +1,206 @@
+package com.projetee.sallesmangement.service.Impl;
+
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.DailySalesRollupRepository;
+import com.projetee.sallesmangement.repository.DailySalesSummaryRepository;
+import com.projetee.sallesmangement.repository.LigneVenteRepository;
+import com.projetee.sallesmangement.repository.SaleRepository;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maintient les tables daily_sales_rollup / daily_sales_summary.
+ * Les mises à jour sont des upserts SQL atomiques (pas de lecture-modification-écriture,
+ * pas d'"update puis insert" qui échoue quand deux ventes créent la même ligne),
+ * et s'exécutent dans la transaction de la vente appelante.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    private final DailySalesRollupRepository rollupRepo;
+    private final DailySalesSummaryRepository summaryRepo;
+    private final SaleRepository saleRepo;
+    private final LigneVenteRepository ligneRepo;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    // "on conflict" sur PostgreSQL, MERGE ailleurs ; déterminé au premier appel
+    private volatile Boolean onConflict;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSale(Sale sale) {
+        applySales(List.of(sale), 1);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSales(List<Sale> sales) {
+        applySales(sales, 1);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revertSale(Sale sale) {
+        applySales(List.of(sale), -1);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revertSales(List<Sale> sales) {
+        applySales(sales, -1);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordLineChange(Sale sale, Product product, long quantityDelta, double revenueDelta, long saleCountDelta) {
+
+        if (sale.getStatus() != SaleStatus.CONFIRMED) {
+            return;
+        }
+
+        incrementProduct(DailySalesRollup.builder()
+                .saleDate(sale.getSaleDate())
+                .productId(product.getId())
+                .categoryId(product.getCategory().getId())
+                .quantity(quantityDelta)
+                .revenue(revenueDelta)
+                .saleCount(saleCountDelta)
+                .build());
+        incrementDay(new DailySalesSummary(sale.getSaleDate(), revenueDelta, 0));
+    }
+
+    @Override
+    @Transactional
+    public void updateProductCategory(Long productId, Long categoryId) {
+        rollupRepo.updateCategory(productId, categoryId);
+    }
+
+    @Override
+    @Transactional
+    public void prepareDay(LocalDate date) {
+        // ligne à zéro créée d'avance : les ventes du jour n'ont plus qu'à l'incrémenter
+        incrementDay(new DailySalesSummary(date, 0, 0));
+    }
+
+    @Override
+    @Transactional
+    public boolean needsBackfill() {
+        return rollupRepo.count() == 0 && saleRepo.countByStatus(SaleStatus.CONFIRMED) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void rebuild() {
+
+        // tables verrouillées avant la relecture des ventes : une vente déjà en cours est commitée
+        // avant, et comptée ; une vente suivante attend le commit et ajoute son delta au résultat
+        if (supportsOnConflict()) {
+            jdbcTemplate.execute("lock table daily_sales_rollup, daily_sales_summary in exclusive mode");
+        }
+
+        rollupRepo.deleteAllInBatch();
+        summaryRepo.deleteAllInBatch();
+
+        rollupRepo.saveAll(ligneRepo.sumByDayAndProduct(SaleStatus.CONFIRMED).stream()
+                .map(t -> DailySalesRollup.builder()
+                        .saleDate(t.getSaleDate())
+                        .productId(t.getProductId())
+                        .categoryId(t.getCategoryId())
+                        .quantity(t.getQuantity())
+                        .revenue(t.getRevenue())
+                        .saleCount(t.getSaleCount())
+                        .build())
+                .toList());
+
+        summaryRepo.saveAll(saleRepo.sumByDay(SaleStatus.CONFIRMED).stream()
+                .map(t -> DailySalesSummary.builder()
+                        .saleDate(t.getSaleDate())
+                        .revenue(t.getRevenue())
+                        .saleCount(t.getSaleCount())
+                        .build())
+                .toList());
+
+        prepareDay(LocalDate.now());
+    }
+
+    private void applySales(List<Sale> sales, int sign) {
+
+        // deltas regroupés : une seule mise à jour par (jour, produit) et par jour,
+        // émises dans l'ordre des clés pour que deux lots verrouillent les lignes dans le même ordre
+        Map<LocalDate, Map<Long, DailySalesRollup>> byProduct = new TreeMap<>();
+        Map<LocalDate, DailySalesSummary> byDay = new TreeMap<>();
+
+        for (Sale sale : sales) {
+
+            LocalDate date = sale.getSaleDate();
+            DailySalesSummary day = byDay.computeIfAbsent(date, d -> new DailySalesSummary(d, 0, 0));
+
+            // une vente compte une fois par produit, quel que soit son nombre de lignes
+            Set<Long> counted = new HashSet<>();
+            for (LigneVente lv : sale.getLignesVente()) {
+                Product product = lv.getProduct();
+                DailySalesRollup delta = byProduct
+                        .computeIfAbsent(date, d -> new TreeMap<>())
+                        .computeIfAbsent(product.getId(), id -> DailySalesRollup.builder()
+                                .saleDate(date)
+                                .productId(id)
+                                .categoryId(product.getCategory().getId())
+                                .build());
+
+                delta.setQuantity(delta.getQuantity() + sign * (long) lv.getQuantity());
+                delta.setRevenue(delta.getRevenue() + sign * lv.getLineTotal());
+                if (counted.add(product.getId())) {
+                    delta.setSaleCount(delta.getSaleCount() + sign);
+                }
+                day.setRevenue(day.getRevenue() + sign * lv.getLineTotal());
+            }
+
+            day.setSaleCount(day.getSaleCount() + sign);
+        }
+
+        byProduct.values().forEach(products -> products.values().forEach(this::incrementProduct));
+        byDay.values().forEach(this::incrementDay);
+    }
+
+    private void incrementProduct(DailySalesRollup delta) {
+        if (supportsOnConflict()) {
+            rollupRepo.upsert(delta.getSaleDate(), delta.getProductId(), delta.getCategoryId(),
+                    delta.getQuantity(), delta.getRevenue(), delta.getSaleCount());
+        } else {
+            rollupRepo.merge(delta.getSaleDate(), delta.getProductId(), delta.getCategoryId(),
+                    delta.getQuantity(), delta.getRevenue(), delta.getSaleCount());
+        }
+    }
+
+    private void incrementDay(DailySalesSummary delta) {
+        if (supportsOnConflict()) {
+            summaryRepo.upsert(delta.getSaleDate(), delta.getRevenue(), delta.getSaleCount());
+        } else {
+            summaryRepo.merge(delta.getSaleDate(), delta.getRevenue(), delta.getSaleCount());
+        }
+    }
+
+    private boolean supportsOnConflict() {
+        if (onConflict == null) {
+            onConflict = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        }
+        return onConflict;
+    }
+}
@@ -0,0 +1,270 @@
+package com.projetee.sallesmangement.service.Impl;
+
+import com.projetee.sallesmangement.dto.stock.StockLevelResponse;
+import com.projetee.sallesmangement.dto.stock.StockMovementResponse;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.exception.ResourceNotFoundException;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.StockMovementRepository;
+import com.projetee.sallesmangement.repository.StockSnapshotRepository;
+import com.projetee.sallesmangement.repository.projection.ProductStockDelta;
+import com.projetee.sallesmangement.service.StockLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Journal des mouvements de stock et points de stock périodiques.
+ * Les mouvements sont écrits dans la transaction qui modifie le stock,
+ * en un seul saveAll (INSERT regroupés, ids tirés de la séquence).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    // mouvements qui fixent le point de départ du journal d'un produit
+    private static final Set<StockMovementReason> BASE_REASONS =
+            EnumSet.of(StockMovementReason.INITIAL, StockMovementReason.OPENING_BALANCE);
+
+    private final StockMovementRepository movementRepo;
+    private final StockSnapshotRepository snapshotRepo;
+    private final ProductRepository productRepo;
+
+    // mouvements validés en retard : ceux horodatés dans cette fenêtre avant le dernier point sont revus
+    @Value("${stock.snapshot.recheck-window:PT1H}")
+    private Duration recheckWindow;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInitial(Product product) {
+        movementRepo.save(StockMovement.builder()
+                .productId(product.getId())
+                .delta(product.getStock())
+                .reason(StockMovementReason.INITIAL)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSales(List<Sale> sales, StockMovementReason reason) {
+
+        // une vente sort le stock de ses lignes, une annulation le rend
+        int sign = reason == StockMovementReason.SALE_CANCEL ? 1 : -1;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<StockMovement> movements = new ArrayList<>();
+        for (Sale sale : sales) {
+            for (LigneVente lv : sale.getLignesVente()) {
+                movements.add(StockMovement.builder()
+                        .productId(lv.getProduct().getId())
+                        .delta(sign * lv.getQuantity())
+                        .reason(reason)
+                        .saleId(sale.getId())
+                        .lineId(lv.getId())
+                        .createdAt(now)
+                        .build());
+            }
+        }
+
+        movementRepo.saveAll(movements);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordLine(LigneVente line, int delta, StockMovementReason reason) {
+        movementRepo.save(StockMovement.builder()
+                .productId(line.getProduct().getId())
+                .delta(delta)
+                .reason(reason)
+                .saleId(line.getSale().getId())
+                .lineId(line.getId())
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    @Transactional
+    public int recordOpeningBalances() {
+
+        List<Product> products = productRepo.findWithoutStockMovementForUpdate(BASE_REASONS);
+        if (products.isEmpty()) {
+            return 0;
+        }
+
+        // relu une fois les verrous posés : une autre instance a pu écrire le solde entre-temps
+        Set<Long> ids = products.stream().map(Product::getId).collect(Collectors.toCollection(HashSet::new));
+        movementRepo.findProductIdsWithReason(ids, BASE_REASONS).forEach(ids::remove);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // mouvements déjà journalisés sans solde de départ : l'ouverture ne compte que le reste
+        Map<Long, Long> ledger = movementRepo.sumByProductIn(ids).stream()
+                .collect(Collectors.toMap(ProductStockDelta::getProductId, ProductStockDelta::getDelta));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> openings = products.stream()
+                .filter(p -> ids.contains(p.getId()))
+                .map(p -> StockMovement.builder()
+                        .productId(p.getId())
+                        .delta((int) (p.getStock() - ledger.getOrDefault(p.getId(), 0L)))
+                        .reason(StockMovementReason.OPENING_BALANCE)
+                        .createdAt(now)
+                        .build())
+                .toList();
+
+        movementRepo.saveAll(openings);
+        return openings.size();
+    }
+
+    @Override
+    @Transactional
+    public int takeSnapshot(LocalDateTime upTo) {
+
+        LocalDateTime previous = snapshotRepo.findLatestTakenAt();
+        if (previous != null && !upTo.isAfter(previous)) {
+            return 0;
+        }
+
+        LocalDateTime windowFrom = upTo.minus(recheckWindow);
+        if (previous == null) {
+            List<ProductStockDelta> totals = movementRepo.sumByProductUpTo(upTo);
+            Map<Long, Long> window = sums(movementRepo.sumByProductBetween(windowFrom, upTo));
+            snapshotRepo.saveAll(totals.stream()
+                    .map(t -> snapshot(t.getProductId(), upTo, t.getDelta(),
+                            windowFrom, window.getOrDefault(t.getProductId(), 0L)))
+                    .toList());
+            return totals.size();
+        }
+
+        // produits qui ont bougé depuis le dernier passage, ou dans la fenêtre qui le précède
+        List<Long> productIds = movementRepo.sumByProductBetween(previous.minus(recheckWindow), upTo).stream()
+                .map(ProductStockDelta::getProductId)
+                .toList();
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+
+        // points regroupés par fenêtre : deux requêtes bornées par groupe au lieu du journal complet
+        Map<List<LocalDateTime>, List<StockSnapshot>> byWindow = new HashMap<>();
+        for (StockSnapshot last : snapshotRepo.findLatestByProductIdIn(productIds)) {
+            if (last.getWindowDelta() != null) {
+                byWindow.computeIfAbsent(List.of(last.getWindowFrom(), last.getTakenAt()), k -> new ArrayList<>())
+                        .add(last);
+            }
+        }
+
+        Map<Long, Long> stocks = new HashMap<>();
+        for (List<StockSnapshot> group : byWindow.values()) {
+            StockSnapshot first = group.get(0);
+            List<Long> ids = group.stream().map(StockSnapshot::getProductId).toList();
+            Map<Long, Long> window = sums(movementRepo.sumByProductInBetween(ids, first.getWindowFrom(), first.getTakenAt()));
+            Map<Long, Long> since = sums(movementRepo.sumByProductInBetween(ids, first.getTakenAt(), upTo));
+            for (StockSnapshot last : group) {
+                // mouvements horodatés avant le dernier point mais validés après lui
+                long late = window.getOrDefault(last.getProductId(), 0L) - last.getWindowDelta();
+                if (late != 0) {
+                    log.info("Stock snapshot of product {} catches up {} from late movements", last.getProductId(), late);
+                }
+                stocks.put(last.getProductId(), last.getStock() + late + since.getOrDefault(last.getProductId(), 0L));
+            }
+        }
+
+        // produit nouveau, ou dernier point sans fenêtre enregistrée : journal complet, une seule fois
+        List<Long> fullSum = productIds.stream().filter(id -> !stocks.containsKey(id)).toList();
+        if (!fullSum.isEmpty()) {
+            stocks.putAll(sums(movementRepo.sumByProductInUpTo(fullSum, upTo)));
+        }
+
+        Map<Long, Long> window = sums(movementRepo.sumByProductInBetween(productIds, windowFrom, upTo));
+        List<StockSnapshot> snapshots = productIds.stream()
+                .map(id -> snapshot(id, upTo, stocks.getOrDefault(id, 0L), windowFrom, window.getOrDefault(id, 0L)))
+                .toList();
+
+        snapshotRepo.saveAll(snapshots);
+        return snapshots.size();
+    }
+
+    private static Map<Long, Long> sums(List<ProductStockDelta> deltas) {
+        return deltas.stream()
+                .collect(Collectors.toMap(ProductStockDelta::getProductId, ProductStockDelta::getDelta));
+    }
+
+    private static StockSnapshot snapshot(Long productId, LocalDateTime takenAt, long stock,
+                                          LocalDateTime windowFrom, long windowDelta) {
+        return StockSnapshot.builder()
+                .productId(productId)
+                .takenAt(takenAt)
+                .stock(stock)
+                .windowFrom(windowFrom)
+                .windowDelta(windowDelta)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockLevelResponse getStockAt(Long productId, LocalDateTime at) {
+
+        if (!productRepo.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found");
+        }
+
+        // dernier point avant la date, puis uniquement les mouvements qui le suivent
+        Optional<StockSnapshot> snapshot = snapshotRepo
+                .findFirstByProductIdAndTakenAtLessThanEqualOrderByTakenAtDesc(productId, at);
+        Optional<ProductStockDelta> replay = snapshot
+                .map(s -> movementRepo.sumForProductBetween(productId, s.getTakenAt(), at))
+                .orElseGet(() -> movementRepo.sumForProductUpTo(productId, at));
+
+        StockLevelResponse response = new StockLevelResponse();
+        response.setProductId(productId);
+        response.setAt(at);
+        response.setSnapshotAt(snapshot.map(StockSnapshot::getTakenAt).orElse(null));
+        response.setStock(snapshot.map(StockSnapshot::getStock).orElse(0L)
+                + replay.map(ProductStockDelta::getDelta).orElse(0L));
+        response.setReplayedMovements(replay.map(ProductStockDelta::getMovements).orElse(0L));
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StockMovementResponse> getMovements(Long productId, LocalDateTime from, LocalDateTime to,
+                                                    int page, int size) {
+
+        if (!productRepo.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found");
+        }
+
+        Pageable pageable = PageRequest.of(page, size);
+        Page<StockMovement> movements = from == null
+                ? movementRepo.findByProductIdAndCreatedAtLessThanEqualOrderByCreatedAtDescIdDesc(productId, to, pageable)
+                : movementRepo.findByProductIdAndCreatedAtBetweenOrderByCreatedAtDescIdDesc(productId, from, to, pageable);
+
+        return movements.map(StockLedgerServiceImpl::toResponse);
+    }
+
+    private static StockMovementResponse toResponse(StockMovement movement) {
+        StockMovementResponse response = new StockMovementResponse();
+        response.setId(movement.getId());
+        response.setProductId(movement.getProductId());
+        response.setDelta(movement.getDelta());
+        response.setReason(movement.getReason());
+        response.setSaleId(movement.getSaleId());
+        response.setLineId(movement.getLineId());
+        response.setCreatedAt(movement.getCreatedAt());
+        return response;
+    }
+}
@@ -0,0 +1,124 @@
+package com.projetee.sallesmangement.service.Impl;
+
+import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.exception.ResourceNotFoundException;
+import com.projetee.sallesmangement.service.StockService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Réservation / restitution de stock par UPDATE conditionnel,
+ * sans lecture préalable : pas de mise à jour perdue entre deux ventes concurrentes.
+ * Un seul chemin, en batch JDBC ; les entités Product déjà chargées dans la transaction
+ * sont ensuite détachées, pour qu'aucun stock ni aucune version périmés ne soient relus.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockServiceImpl implements StockService {
+
+    private static final String DECREMENT_SQL =
+            "update product set stock = stock - ?, version = version + 1 where id = ? and stock >= ?";
+    private static final String INCREMENT_SQL =
+            "update product set stock = stock + ?, version = version + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(Long productId, int quantity) {
+        return reserveAll(Map.of(productId, quantity)).isEmpty();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long productId, int quantity) {
+        releaseAll(Map.of(productId, quantity));
+    }
+
+    /**
+     * Tout ou rien : renvoie les produits en rupture (stock rendu pour les autres),
+     * ou une liste vide si tout est réservé.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> reserveAll(Map<Long, Integer> quantities) {
+
+        List<Map.Entry<Long, Integer>> entries = sortedById(quantities);
+        int[] counts = batch(DECREMENT_SQL, entries, (ps, e) -> {
+            ps.setInt(1, e.getValue());
+            ps.setLong(2, e.getKey());
+            ps.setInt(3, e.getValue());
+        });
+
+        List<Long> outOfStock = new ArrayList<>();
+        Map<Long, Integer> reserved = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[i] == 0) {
+                outOfStock.add(entries.get(i).getKey());
+            } else {
+                reserved.put(entries.get(i).getKey(), entries.get(i).getValue());
+            }
+        }
+
+        if (!outOfStock.isEmpty() && !reserved.isEmpty()) {
+            releaseAll(reserved);
+        }
+        return outOfStock;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseAll(Map<Long, Integer> quantities) {
+
+        List<Map.Entry<Long, Integer>> entries = sortedById(quantities);
+        int[] counts = batch(INCREMENT_SQL, entries, (ps, e) -> {
+            ps.setInt(1, e.getValue());
+            ps.setLong(2, e.getKey());
+        });
+
+        for (int count : counts) {
+            if (count == 0) {
+                throw new ResourceNotFoundException("Product not found");
+            }
+        }
+    }
+
+    // ordre des ids : deux transactions verrouillent leurs lignes produit dans le même ordre
+    private static List<Map.Entry<Long, Integer>> sortedById(Map<Long, Integer> quantities) {
+        return new ArrayList<>(new TreeMap<>(quantities).entrySet());
+    }
+
+    private int[] batch(String sql, List<Map.Entry<Long, Integer>> entries,
+                        ParameterizedPreparedStatementSetter<Map.Entry<Long, Integer>> setter) {
+        if (entries.isEmpty()) {
+            return new int[0];
+        }
+        // une seule tranche : un aller-retour JDBC pour toutes les lignes de la vente
+        int[] counts = jdbcTemplate.batchUpdate(sql, entries, entries.size(), setter)[0];
+        detachLoaded(entries);
+        return counts;
+    }
+
+    // sans lecture : seuls les Product déjà présents dans le contexte de persistance sont détachés
+    private void detachLoaded(List<Map.Entry<Long, Integer>> entries) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Product.class);
+        for (Map.Entry<Long, Integer> entry : entries) {
+            Object loaded = session.getPersistenceContextInternal()
+                    .getEntity(session.generateEntityKey(entry.getKey(), persister));
+            if (loaded != null) {
+                entityManager.detach(loaded);
+            }
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.projetee.sallesmangement.service.Impl;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.user.UserRequest;
 import com.projetee.sallesmangement.dto.user.UserResponse;
 import com.projetee.sallesmangement.entity.User;
+import com.projetee.sallesmangement.event.UserChangedEvent;
 import com.projetee.sallesmangement.exception.DuplicateResourceException;
 import com.projetee.sallesmangement.exception.ResourceNotFoundException;
 import com.projetee.sallesmangement.mapper.UserMapper;
 import com.projetee.sallesmangement.repository.UserRepository;
 import com.projetee.sallesmangement.service.UserService;
+import com.projetee.sallesmangement.service.pagination.Cursors;
+import com.projetee.sallesmangement.service.streaming.JsonArrayStreamer;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,6 +30,8 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository repo;
     private final UserMapper mapper;
+    private final JsonArrayStreamer jsonStreamer;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserResponse create(UserRequest request) {
@@ -39,6 +49,7 @@ public class UserServiceImpl implements UserService {
         user.setActive(true);
 
         User saved = repo.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId()));
 
         return mapper.toResponse(saved);
     }
@@ -52,11 +63,9 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserResponse> getAll() {
-        return repo.findAll()
-                .stream()
-                .map(mapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public void writeAll(OutputStream out) throws IOException {
+        jsonStreamer.write(repo.streamAll(), mapper::toResponse, out);
     }
 
     @Override
@@ -68,6 +77,16 @@ public class UserServiceImpl implements UserService {
                 .map(mapper::toResponse);
     }
 
+    // pagination par curseur sur la clé primaire
+    @Override
+    public CursorPageResponse<UserResponse> getAfter(String after, int size, boolean includeTotal) {
+        Limit limit = Cursors.limit(size);
+        long afterId = after == null || after.isBlank() ? 0L : Cursors.decode(after).id();
+        return Cursors.page(repo.findByIdGreaterThanOrderByIdAsc(afterId, limit), size, mapper::toResponse,
+                u -> Cursors.encode(u.getId()),
+                includeTotal ? repo.count() : null);
+    }
+
     @Override
     public UserResponse update(Long id, UserRequest request) {
 
@@ -84,7 +103,9 @@ public class UserServiceImpl implements UserService {
         user.setPassword(request.getPassword()); // en clair pour l'instant
         user.setRole(request.getRole());
 
-        return mapper.toResponse(repo.save(user));
+        User saved = repo.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+        return mapper.toResponse(saved);
     }
 
     @Override
@@ -93,7 +114,9 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         user.setActive(true);
-        return mapper.toResponse(repo.save(user));
+        User saved = repo.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+        return mapper.toResponse(saved);
     }
 
     @Override
@@ -102,7 +125,9 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         user.setActive(false);
-        return mapper.toResponse(repo.save(user));
+        User saved = repo.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+        return mapper.toResponse(saved);
     }
 
     @Override
@@ -111,5 +136,6 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         repo.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
     }
 }
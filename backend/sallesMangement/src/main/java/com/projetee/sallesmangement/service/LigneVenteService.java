@@ -1,5 +1,6 @@
 package com.projetee.sallesmangement.service;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
 import com.projetee.sallesmangement.dto.lignevente.LigneVenteResponse;
 import org.springframework.data.domain.Page;
@@ -16,4 +17,6 @@ public interface LigneVenteService {
 
     Page<LigneVenteResponse> getPaginated(int page, int size);
 
+    CursorPageResponse<LigneVenteResponse> getAfter(String after, int size, boolean includeTotal);
+
 }
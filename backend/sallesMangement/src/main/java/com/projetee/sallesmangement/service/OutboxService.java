@@ -0,0 +1,17 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.entity.LigneVente;
+import com.projetee.sallesmangement.entity.Sale;
+
+import java.util.List;
+
+public interface OutboxService {
+
+    void saleCreated(List<Sale> sales);
+
+    void salesCancelled(List<Sale> sales);
+
+    void saleDeleted(Sale sale);
+
+    void lineChanged(LigneVente line, int quantityDelta, double amountDelta, double previousSaleTotal);
+}
@@ -1,9 +1,12 @@
 package com.projetee.sallesmangement.service;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.product.ProductRequest;
 import com.projetee.sallesmangement.dto.product.ProductResponse;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ProductService {
@@ -12,10 +15,14 @@ public interface ProductService {
 
     ProductResponse get(Long id);
 
-    List<ProductResponse> getAll();
+    void writeAll(OutputStream out) throws IOException;
+
+    List<ProductResponse> search(String query, int limit);
 
     Page<ProductResponse> getPaginated(int page, int size, String sortBy);
 
+    CursorPageResponse<ProductResponse> getAfter(String after, int size, boolean includeTotal);
+
     ProductResponse update(Long id, ProductRequest request);
 
     void delete(Long id);
@@ -1,23 +1,36 @@
 package com.projetee.sallesmangement.service;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
+import com.projetee.sallesmangement.dto.sale.SaleBatchResponse;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelRequest;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelResponse;
 import com.projetee.sallesmangement.dto.sale.SaleRequest;
 import com.projetee.sallesmangement.dto.sale.SaleResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface SaleService {
 
     SaleResponse create(SaleRequest request);
 
+    SaleBatchResponse createBatch(List<SaleRequest> requests);
+
     SaleResponse get(Long id);
 
-    List<SaleResponse> getAll();
+    // liste complète, écrite en flux dans out
+    void writeAll(OutputStream out) throws IOException;
 
     Page<SaleResponse> getPaginated(int page, int size);
 
+    CursorPageResponse<SaleResponse> getAfter(String after, int size, boolean includeTotal);
+
     SaleResponse cancel(Long id);
 
+    SaleBulkCancelResponse cancelBulk(SaleBulkCancelRequest request);
+
     void delete(Long id);
 }
@@ -0,0 +1,29 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.entity.Sale;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesRollupService {
+
+    void recordSale(Sale sale);
+
+    void recordSales(List<Sale> sales);
+
+    void revertSale(Sale sale);
+
+    void revertSales(List<Sale> sales);
+
+    void recordLineChange(Sale sale, Product product, long quantityDelta, double revenueDelta, long saleCountDelta);
+
+    void updateProductCategory(Long productId, Long categoryId);
+
+    void prepareDay(LocalDate date);
+
+    // aucune ligne d'agrégat alors que des ventes existent : tables créées sur une base déjà remplie
+    boolean needsBackfill();
+
+    void rebuild();
+}
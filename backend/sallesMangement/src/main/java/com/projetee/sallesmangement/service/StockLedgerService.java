@@ -0,0 +1,29 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.stock.StockLevelResponse;
+import com.projetee.sallesmangement.dto.stock.StockMovementResponse;
+import com.projetee.sallesmangement.entity.LigneVente;
+import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.entity.Sale;
+import com.projetee.sallesmangement.entity.StockMovementReason;
+import org.springframework.data.domain.Page;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockLedgerService {
+
+    void recordInitial(Product product);
+
+    void recordSales(List<Sale> sales, StockMovementReason reason);
+
+    void recordLine(LigneVente line, int delta, StockMovementReason reason);
+
+    int recordOpeningBalances();
+
+    int takeSnapshot(LocalDateTime upTo);
+
+    StockLevelResponse getStockAt(Long productId, LocalDateTime at);
+
+    Page<StockMovementResponse> getMovements(Long productId, LocalDateTime from, LocalDateTime to, int page, int size);
+}
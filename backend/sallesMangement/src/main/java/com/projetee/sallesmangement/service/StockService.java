@@ -0,0 +1,15 @@
+package com.projetee.sallesmangement.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StockService {
+
+    boolean reserve(Long productId, int quantity);
+
+    void release(Long productId, int quantity);
+
+    List<Long> reserveAll(Map<Long, Integer> quantities);
+
+    void releaseAll(Map<Long, Integer> quantities);
+}
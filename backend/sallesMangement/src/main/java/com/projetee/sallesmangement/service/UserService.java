@@ -1,9 +1,12 @@
 package com.projetee.sallesmangement.service;
 
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
 import com.projetee.sallesmangement.dto.user.UserRequest;
 import com.projetee.sallesmangement.dto.user.UserResponse;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface UserService {
@@ -12,10 +15,12 @@ public interface UserService {
 
     UserResponse get(Long id);
 
-    List<UserResponse> getAll();
+    void writeAll(OutputStream out) throws IOException;
 
     Page<UserResponse> getPaginated(int page, int size, String sortBy);
 
+    CursorPageResponse<UserResponse> getAfter(String after, int size, boolean includeTotal);
+
     UserResponse update(Long id, UserRequest request);
 
     UserResponse activate(Long id);
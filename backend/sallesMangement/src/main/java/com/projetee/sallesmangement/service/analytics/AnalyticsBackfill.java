@@ -0,0 +1,43 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import com.projetee.sallesmangement.service.BasketStatsService;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remplit les agrégats au démarrage quand ils sont vides alors que des ventes existent :
+ * les tables sont créées vides par ddl-auto sur une base déjà en service, et tous les
+ * endpoints qui les lisent renverraient zéro jusqu'à une reconstruction manuelle.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AnalyticsBackfill {
+
+    private final SalesRollupService rollupService;
+    private final BasketStatsService basketStatsService;
+    private final AnalyticsCache cache;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        boolean rebuilt = false;
+        if (rollupService.needsBackfill()) {
+            log.info("Daily sales rollup is empty, rebuilding it from existing sales");
+            rollupService.rebuild();
+            rebuilt = true;
+        }
+        if (basketStatsService.needsBackfill()) {
+            log.info("Basket statistics are empty, rebuilding them from existing sales");
+            basketStatsService.rebuild();
+            rebuilt = true;
+        }
+        if (rebuilt) {
+            // des requêtes arrivées pendant le remplissage ont pu mettre des zéros en cache
+            cache.clear();
+        }
+    }
+}
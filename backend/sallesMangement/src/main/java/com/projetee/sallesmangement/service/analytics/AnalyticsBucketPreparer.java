@@ -0,0 +1,39 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import com.projetee.sallesmangement.service.BasketStatsService;
+import com.projetee.sallesmangement.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Crée les lignes d'agrégats du jour (résumé journalier, shards du panier)
+ * avant les premières ventes. Sinon la première vente du jour les crée en pleine
+ * transaction, avec verrous de stock déjà posés, et les ventes concurrentes
+ * se disputent la même insertion.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsBucketPreparer {
+
+    private final SalesRollupService rollupService;
+    private final BasketStatsService basketStatsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * *")
+    public void prepareToday() {
+        LocalDate today = LocalDate.now();
+        try {
+            rollupService.prepareDay(today);
+            basketStatsService.prepareMonth(YearMonth.from(today));
+        } catch (DataIntegrityViolationException ignored) {
+            // créées au même moment par une autre instance
+        }
+    }
+}
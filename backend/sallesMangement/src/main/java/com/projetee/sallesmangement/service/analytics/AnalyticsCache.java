@@ -0,0 +1,144 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projetee.sallesmangement.dto.analytics.CacheStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache LRU borné avec TTL pour les résultats analytics.
+ * Les DTO sont mutables : chaque entrée est gardée sérialisée et chaque lecture
+ * renvoie sa propre copie, un appelant qui modifie sa réponse ne touche pas au cache.
+ */
+@Component
+public class AnalyticsCache {
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final ObjectMapper objectMapper;
+
+    private final LinkedHashMap<AnalyticsCacheKey, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // incrémenté à chaque invalidation : un calcul démarré avant n'est pas mis en cache
+    private long generation;
+
+    public AnalyticsCache(@Value("${analytics.cache.max-size:500}") int maxSize,
+                          @Value("${analytics.cache.ttl:PT5M}") Duration ttl,
+                          ObjectMapper objectMapper) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.objectMapper = objectMapper;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<AnalyticsCacheKey, Entry> eldest) {
+                boolean full = size() > AnalyticsCache.this.maxSize;
+                if (full) {
+                    evictions.incrementAndGet();
+                }
+                return full;
+            }
+        };
+    }
+
+    public <T> T get(AnalyticsCacheKey key, TypeReference<T> type, Supplier<T> loader) {
+
+        long now = System.nanoTime();
+        long startGeneration;
+        byte[] cached = null;
+
+        synchronized (entries) {
+            startGeneration = generation;
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - now > 0) {
+                hits.incrementAndGet();
+                cached = entry.value;
+            }
+            else if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+
+        // copie désérialisée hors verrou
+        if (cached != null) {
+            return read(cached, type);
+        }
+
+        misses.incrementAndGet();
+        // calcul hors verrou : deux appels concurrents peuvent calculer la même clé
+        T value = loader.get();
+        // instantané pris avant de rendre la valeur : l'appelant peut la modifier ensuite
+        byte[] snapshot = write(value);
+
+        synchronized (entries) {
+            if (generation == startGeneration) {
+                entries.put(key, new Entry(snapshot, System.nanoTime() + ttl.toNanos()));
+            }
+        }
+        return value;
+    }
+
+    public void evictIf(Predicate<AnalyticsCacheKey> predicate) {
+        synchronized (entries) {
+            generation++;
+            Iterator<AnalyticsCacheKey> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (predicate.test(it.next())) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        evictIf(key -> true);
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStatsResponse dto = new CacheStatsResponse();
+        dto.setHits(hits.get());
+        dto.setMisses(misses.get());
+        dto.setEvictions(evictions.get());
+        synchronized (entries) {
+            dto.setSize(entries.size());
+        }
+        dto.setMaxSize(maxSize);
+        dto.setTtlSeconds(ttl.toSeconds());
+        return dto;
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot cache analytics result", e);
+        }
+    }
+
+    private <T> T read(byte[] value, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cached analytics result", e);
+        }
+    }
+
+    private record Entry(byte[] value, long expiresAt) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Clé de cache = endpoint + paramètres.
+ */
+public record AnalyticsCacheKey(Endpoint endpoint, List<Object> params) {
+
+    public enum Endpoint {
+        // ventes, produits, catégories, utilisateurs
+        KPI(true, true, true, true),
+        MONTHLY_SALES(true, false, false, false),
+        DAILY_SALES(true, false, false, false),
+        BEST_SELLERS(true, true, true, false),
+        SLOW_MOVERS(true, true, true, false),
+        LOW_STOCK(true, true, true, false),
+        CATEGORY_STATS(true, true, true, false),
+        CURRENT_MONTH_EVOLUTION(true, false, false, false),
+        BASKET_STATS(true, false, false, false),
+        DASHBOARD(true, true, true, true);
+
+        private final boolean salesDependent;
+        private final boolean productDependent;
+        private final boolean categoryDependent;
+        private final boolean userDependent;
+
+        Endpoint(boolean salesDependent, boolean productDependent,
+                 boolean categoryDependent, boolean userDependent) {
+            this.salesDependent = salesDependent;
+            this.productDependent = productDependent;
+            this.categoryDependent = categoryDependent;
+            this.userDependent = userDependent;
+        }
+
+        public boolean isSalesDependent() {
+            return salesDependent;
+        }
+
+        public boolean isProductDependent() {
+            return productDependent;
+        }
+
+        // nom de catégorie affiché, ou nombre de catégories (KPI)
+        public boolean isCategoryDependent() {
+            return categoryDependent;
+        }
+
+        // nombre d'utilisateurs (KPI)
+        public boolean isUserDependent() {
+            return userDependent;
+        }
+    }
+
+    public static AnalyticsCacheKey of(Endpoint endpoint, Object... params) {
+        // Arrays.asList : les paramètres optionnels peuvent être null
+        return new AnalyticsCacheKey(endpoint, Collections.unmodifiableList(Arrays.asList(params)));
+    }
+
+    /**
+     * Une entrée doit être invalidée si elle dépend d'au moins un des jours modifiés.
+     */
+    public boolean coversAny(Iterable<LocalDate> dates) {
+        return switch (endpoint) {
+            case DAILY_SALES -> {
+                LocalDate start = (LocalDate) params.get(0);
+                LocalDate end = (LocalDate) params.get(1);
+                for (LocalDate d : dates) {
+                    if (!d.isBefore(start) && !d.isAfter(end)) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            case CURRENT_MONTH_EVOLUTION -> {
+                LocalDate previousMonthStart = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+                for (LocalDate d : dates) {
+                    if (!d.isBefore(previousMonthStart)) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            case BASKET_STATS -> {
+                YearMonth from = (YearMonth) params.get(0);
+                YearMonth to = (YearMonth) params.get(1);
+                for (LocalDate d : dates) {
+                    YearMonth month = YearMonth.from(d);
+                    if ((from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to))) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            default -> endpoint.isSalesDependent();
+        };
+    }
+}
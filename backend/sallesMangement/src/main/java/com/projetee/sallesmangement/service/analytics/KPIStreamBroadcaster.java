@@ -0,0 +1,256 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import com.projetee.sallesmangement.dto.analytics.KPIDeltaResponse;
+import com.projetee.sallesmangement.dto.analytics.KPIResponse;
+import com.projetee.sallesmangement.dto.analytics.KPISnapshotResponse;
+import com.projetee.sallesmangement.event.CategoryChangedEvent;
+import com.projetee.sallesmangement.event.ProductChangedEvent;
+import com.projetee.sallesmangement.event.SalesChangedEvent;
+import com.projetee.sallesmangement.event.UserChangedEvent;
+import com.projetee.sallesmangement.service.AnalyticsService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Diffuse les KPI en Server-Sent Events.
+ * Les commits de ventes marquent l'état comme modifié ; la tâche planifiée recalcule
+ * les KPI (via le cache) au plus une fois par intervalle et envoie le même delta
+ * à tous les clients connectés. Elle est seule à envoyer des deltas : ils partent
+ * dans l'ordre des versions, et les envois (bloquants) se font hors du verrou.
+ * Un client qui arrive pendant qu'un delta est en attente reçoit son snapshot
+ * du même passage, juste après ce delta : jamais un état déjà dépassé.
+ */
+@Slf4j
+@Component
+public class KPIStreamBroadcaster {
+
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    private final AnalyticsService analyticsService;
+    private final Duration emitterTimeout;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    // inscrits pendant qu'un delta était en attente : servis par le prochain flush
+    private final List<SseEmitter> awaiting = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // last et les inscriptions sont protégés par "this" : un client reçoit tous les deltas
+    // postérieurs à son snapshot, et aucun delta antérieur
+    private volatile KPISnapshotResponse last;
+    private volatile long lastSentAt = System.nanoTime();
+
+    public KPIStreamBroadcaster(AnalyticsService analyticsService,
+                                @Value("${analytics.stream.timeout:PT30M}") Duration emitterTimeout) {
+        this.analyticsService = analyticsService;
+        this.emitterTimeout = emitterTimeout;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        emitter.onCompletion(() -> remove(emitter));
+        emitter.onTimeout(() -> remove(emitter));
+        emitter.onError(e -> remove(emitter));
+
+        // premier client seulement, calcul hors verrou
+        KPIResponse kpi = last == null ? analyticsService.getGlobalKPI() : null;
+
+        // tenu pendant l'envoi du snapshot : un delta publié entre-temps attend derrière lui
+        synchronized (emitter) {
+            KPISnapshotResponse snapshot = null;
+            synchronized (this) {
+                if (last == null) {
+                    last = toSnapshot(kpi, 1);
+                }
+                if (dirty.get()) {
+                    // last est déjà dépassé : le snapshot part avec le delta en attente
+                    awaiting.add(emitter);
+                } else {
+                    snapshot = last;
+                    emitters.add(emitter);
+                }
+            }
+            if (snapshot != null) {
+                send(emitter, snapshotEvent(snapshot));
+            }
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return emitters.size() + awaiting.size();
+    }
+
+    // après l'invalidation du cache analytics, sinon le flush pourrait relire l'ancien KPI
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        dirty.set(true);
+    }
+
+    // nombre de catégories et d'utilisateurs, nom de la meilleure catégorie
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.stream.flush-interval:PT1S}")
+    public void flush() {
+        try {
+            if (emitters.isEmpty() && awaiting.isEmpty()) {
+                return;
+            }
+            publish(dirty.getAndSet(false) ? analyticsService.getGlobalKPI() : null);
+        } catch (RuntimeException e) {
+            // une exception ne doit pas interrompre la diffusion
+            log.warn("KPI stream flush failed", e);
+        }
+    }
+
+    private void publish(KPIResponse kpi) {
+
+        Set<ResponseBodyEmitter.DataWithMediaType> event = null;
+        List<SseEmitter> targets;
+        List<SseEmitter> newcomers;
+        KPISnapshotResponse snapshot;
+
+        // sous verrou : la version, le nouvel état, les destinataires du delta (inscrits avant lui)
+        // et les nouveaux venus, dont le snapshot est ce même état
+        synchronized (this) {
+            if (kpi != null) {
+                KPISnapshotResponse current = toSnapshot(kpi, last == null ? 1 : last.getVersion() + 1);
+                KPIDeltaResponse delta = diff(last, current);
+                if (delta != null) {
+                    last = current;
+                    // sérialisé une seule fois pour tous les clients
+                    event = SseEmitter.event().name("delta").id(String.valueOf(current.getVersion())).data(delta).build();
+                }
+            }
+            targets = List.copyOf(emitters);
+            newcomers = List.copyOf(awaiting);
+            awaiting.clear();
+            emitters.addAll(newcomers);
+            snapshot = last;
+        }
+
+        if (event != null) {
+            broadcast(event, targets);
+        } else if (System.nanoTime() - lastSentAt > HEARTBEAT_NANOS) {
+            broadcast(SseEmitter.event().comment("ping").build(), targets);
+        }
+
+        Set<ResponseBodyEmitter.DataWithMediaType> snapshotEvent = newcomers.isEmpty() ? null : snapshotEvent(snapshot);
+        for (SseEmitter emitter : newcomers) {
+            synchronized (emitter) {
+                send(emitter, snapshotEvent);
+            }
+        }
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> snapshotEvent(KPISnapshotResponse snapshot) {
+        return SseEmitter.event().name("snapshot").id(String.valueOf(snapshot.getVersion())).data(snapshot).build();
+    }
+
+    private void remove(SseEmitter emitter) {
+        emitters.remove(emitter);
+        awaiting.remove(emitter);
+    }
+
+    private void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> event, List<SseEmitter> targets) {
+        lastSentAt = System.nanoTime();
+        for (SseEmitter emitter : targets) {
+            synchronized (emitter) {
+                send(emitter, event);
+            }
+        }
+    }
+
+    // un client qui ne reçoit plus est retiré : les envois suivants ne l'attendent pas
+    private void send(SseEmitter emitter, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static KPIDeltaResponse diff(KPISnapshotResponse previous, KPISnapshotResponse current) {
+
+        KPIDeltaResponse delta = new KPIDeltaResponse();
+        delta.setVersion(current.getVersion());
+        boolean changed = previous == null;
+
+        if (previous == null || previous.getSalesCount() != current.getSalesCount()) {
+            delta.setSalesCount(current.getSalesCount());
+            delta.setSalesCountDelta(current.getSalesCount() - (previous == null ? 0 : previous.getSalesCount()));
+            changed = true;
+        }
+        if (previous == null || Double.compare(previous.getTotalRevenue(), current.getTotalRevenue()) != 0) {
+            delta.setTotalRevenue(current.getTotalRevenue());
+            delta.setRevenueDelta(current.getTotalRevenue() - (previous == null ? 0 : previous.getTotalRevenue()));
+            changed = true;
+        }
+        if (previous == null || Double.compare(previous.getCurrentMonthRevenue(), current.getCurrentMonthRevenue()) != 0) {
+            delta.setCurrentMonthRevenue(current.getCurrentMonthRevenue());
+            changed = true;
+        }
+        if (previous == null || Double.compare(previous.getAverageBasket(), current.getAverageBasket()) != 0) {
+            delta.setAverageBasket(current.getAverageBasket());
+            changed = true;
+        }
+        if (previous == null || !Objects.equals(previous.getBestSellerProduct(), current.getBestSellerProduct())) {
+            delta.setBestSellerProduct(current.getBestSellerProduct());
+            changed = true;
+        }
+        return changed ? delta : null;
+    }
+
+    private static KPISnapshotResponse toSnapshot(KPIResponse kpi, long version) {
+        KPISnapshotResponse snapshot = new KPISnapshotResponse();
+        snapshot.setVersion(version);
+        snapshot.setSalesCount(kpi.getSales().getSalesCount());
+        snapshot.setTotalRevenue(kpi.getSales().getTotalRevenue());
+        snapshot.setCurrentMonthRevenue(kpi.getSales().getCurrentMonthRevenue());
+        snapshot.setAverageBasket(kpi.getSales().getAverageBasket());
+        snapshot.setBestSellerProduct(kpi.getPerformance().getBestSellerProduct());
+        return snapshot;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        emitters.forEach(SseEmitter::complete);
+        awaiting.forEach(SseEmitter::complete);
+        emitters.clear();
+        awaiting.clear();
+    }
+}
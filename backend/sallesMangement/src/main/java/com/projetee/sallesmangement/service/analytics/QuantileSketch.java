@@ -0,0 +1,115 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sketch de quantiles à buckets logarithmiques (type DDSketch) : erreur relative
+ * bornée à 1 %, fusionnable, et supportant la suppression d'une valeur (annulation).
+ * La taille dépend de l'étendue des montants, pas du nombre de ventes.
+ */
+public class QuantileSketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_INDEXABLE = 1e-2;
+
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        adjust(value, 1);
+    }
+
+    public void remove(double value) {
+        adjust(value, -1);
+    }
+
+    public void merge(QuantileSketch other) {
+        other.buckets.forEach(this::adjustBucket);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /** Quantile approché, {@code q} entre 0 et 1. */
+    public double quantile(double q) {
+        if (count <= 0) {
+            return 0.0;
+        }
+
+        double rank = q * (count - 1);
+
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return valueOf(bucket.getKey());
+            }
+        }
+        return buckets.isEmpty() ? 0.0 : valueOf(buckets.lastKey());
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES
+                + buckets.size() * (Integer.BYTES + Long.BYTES));
+        buffer.putLong(count);
+        buffer.putLong(zeroCount);
+        buffer.putInt(buckets.size());
+        buckets.forEach((index, n) -> {
+            buffer.putInt(index);
+            buffer.putLong(n);
+        });
+        return buffer.array();
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        sketch.count = buffer.getLong();
+        sketch.zeroCount = buffer.getLong();
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            sketch.buckets.put(buffer.getInt(), buffer.getLong());
+        }
+        return sketch;
+    }
+
+    private void adjust(double value, long delta) {
+        if (value < MIN_INDEXABLE) {
+            zeroCount += delta;
+        } else {
+            adjustBucket(indexOf(value), delta);
+        }
+        count += delta;
+    }
+
+    private void adjustBucket(int index, long delta) {
+        long n = buckets.merge(index, delta, Long::sum);
+        if (n <= 0) {
+            buckets.remove(index);
+        }
+    }
+
+    private static int indexOf(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
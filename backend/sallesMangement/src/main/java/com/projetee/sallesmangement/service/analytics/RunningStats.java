@@ -0,0 +1,55 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Moyenne / variance incrémentales (Welford), avec retrait d'une valeur
+ * et fusion de deux états (Chan et al.).
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunningStats {
+
+    private long count;
+    private double mean;
+    private double m2;
+
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    public void remove(double x) {
+        if (count <= 1) {
+            count = 0;
+            mean = 0.0;
+            m2 = 0.0;
+            return;
+        }
+        double previousMean = mean;
+        count--;
+        mean = (previousMean * (count + 1) - x) / count;
+        m2 = Math.max(0.0, m2 - (x - mean) * (x - previousMean));
+    }
+
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+    }
+
+    /** Variance de population. */
+    public double variance() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+}
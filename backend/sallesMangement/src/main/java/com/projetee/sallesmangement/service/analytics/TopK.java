@@ -0,0 +1,42 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Garde les k meilleurs éléments selon {@code comparator} avec un tas min borné :
+ * O(n log k) au lieu de trier les n éléments.
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<T> heap;
+
+    public TopK(int k, Comparator<? super T> comparator) {
+        this.k = Math.max(0, k);
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.max(1, this.k), comparator);
+    }
+
+    public void offer(T item) {
+        if (k == 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (comparator.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /** Éléments retenus, du meilleur au moins bon. */
+    public List<T> toSortedList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(comparator.reversed());
+        return result;
+    }
+}
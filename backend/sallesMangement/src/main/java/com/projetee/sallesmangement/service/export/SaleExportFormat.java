@@ -0,0 +1,36 @@
+package com.projetee.sallesmangement.service.export;
+
+import com.projetee.sallesmangement.dto.common.CodedEnum;
+import org.springframework.http.MediaType;
+
+public enum SaleExportFormat implements CodedEnum {
+
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    SaleExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // le paramètre ?format= reprend l'extension du fichier
+    @Override
+    public String getCode() {
+        return extension;
+    }
+
+    public static SaleExportFormat fromCode(String code) {
+        return CodedEnum.fromCode(SaleExportFormat.class, code, "export format");
+    }
+}
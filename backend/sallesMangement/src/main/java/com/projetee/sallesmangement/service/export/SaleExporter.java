@@ -0,0 +1,187 @@
+package com.projetee.sallesmangement.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export des ventes, une ligne par ligne de vente (les ventes sans ligne sortent une fois,
+ * colonnes de ligne vides). Les lignes sont lues par un curseur JDBC en avant seulement,
+ * par paquets de fetchSize, et écrites au fil de l'eau : la mémoire ne dépend pas du volume.
+ */
+@Component
+public class SaleExporter {
+
+    private static final String[] COLUMNS = {
+            "sale_id", "sale_date", "status", "user_id", "username", "sale_total",
+            "line_id", "product_id", "asin", "product_title", "quantity", "unit_price", "line_total"
+    };
+
+    private static final String SELECT = """
+            select s.id, s.sale_date, s.status, u.id, u.username, s.total_amount,
+                   l.id, p.id, p.asin, p.title, l.quantity, l.unit_price, l.line_total
+            from sale s
+            join users u on u.id = s.user_id
+            left join ligne_vente l on l.sale_id = s.id
+            left join product p on p.id = l.product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int flushEvery;
+
+    public SaleExporter(JdbcTemplate jdbcTemplate,
+                        ObjectMapper objectMapper,
+                        @Value("${sales.export.fetch-size:500}") int fetchSize,
+                        @Value("${sales.export.flush-every:1000}") int flushEvery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.flushEvery = flushEvery;
+    }
+
+    // transaction en lecture seule : sans autocommit, PostgreSQL ouvre un vrai curseur
+    // serveur et respecte le fetchSize au lieu de tout charger côté client
+    @Transactional(readOnly = true)
+    public long export(SaleExportFormat format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (from != null) {
+            conditions.add("s.sale_date >= ?");
+            params.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("s.sale_date <= ?");
+            params.add(Date.valueOf(to));
+        }
+        String sql = SELECT
+                + (conditions.isEmpty() ? "" : "where " + String.join(" and ", conditions) + "\n")
+                + "order by s.sale_date, s.id, l.id";
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rows = format == SaleExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long[] count = {0};
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    rows.write(readRow(rs));
+                    // premiers octets envoyés tôt, puis à intervalle régulier
+                    if (++count[0] % flushEvery == 0) {
+                        rows.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        rows.finish();
+        return count[0];
+    }
+
+    private static Object[] readRow(ResultSet rs) throws SQLException {
+        Object[] values = new Object[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = rs.getObject(i + 1);
+            // dates en ISO-8601, identiques en CSV et en NDJSON
+            values[i] = value instanceof Date date ? date.toLocalDate().toString() : value;
+        }
+        return values;
+    }
+
+    private interface RowWriter {
+
+        void write(Object[] values) throws IOException;
+
+        void flush() throws IOException;
+
+        // fin du document : vide aussi les tampons intermédiaires
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final CSVPrinter printer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.printer = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(COLUMNS).build());
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            printer.printRecord(values);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            printer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            printer.flush();
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private boolean empty = true;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                generator.writeObjectField(COLUMNS[i], values[i]);
+            }
+            generator.writeEndObject();
+            empty = false;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // le séparateur ne s'écrit qu'entre deux objets : dernière ligne terminée ici
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+}
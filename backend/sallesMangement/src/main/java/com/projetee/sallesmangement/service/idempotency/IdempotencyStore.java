@@ -0,0 +1,149 @@
+package com.projetee.sallesmangement.service.idempotency;
+
+import com.projetee.sallesmangement.exception.BadRequestException;
+import com.projetee.sallesmangement.exception.DuplicateResourceException;
+import com.projetee.sallesmangement.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Réponses des requêtes portant un en-tête Idempotency-Key, dans un magasin
+ * borné (LRU) avec expiration. Seules les entrées terminées sont évincées : une
+ * requête encore en cours garde sa clé, et une nouvelle clé est refusée (429)
+ * si le magasin n'est plein que de requêtes en cours. Un rejeu renvoie la réponse enregistrée sans
+ * rappeler le service ; une requête concurrente avec la même clé attend la
+ * première au lieu de s'exécuter une deuxième fois.
+ * En cas d'erreur la clé est libérée : un nouvel essai repart de zéro.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyStore(@Value("${sales.idempotency.max-size:10000}") int maxSize,
+                            @Value("${sales.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${sales.idempotency.wait-timeout:PT30S}") Duration waitTimeout) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param key         valeur de l'en-tête, null si absent (exécution directe)
+     * @param fingerprint identifie l'opération et sa requête : une même clé
+     *                    réutilisée pour une autre requête est refusée
+     */
+    public <T> ResponseEntity<T> execute(String key, Object fingerprint, Supplier<ResponseEntity<T>> action) {
+
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Invalid " + HEADER + " header");
+        }
+
+        long now = System.nanoTime();
+        Entry entry = new Entry(fingerprint, new CompletableFuture<>(), now + ttl.toNanos());
+        Entry existing;
+
+        synchronized (entries) {
+            existing = entries.get(key);
+            if (existing != null && existing.expiresAt - now <= 0) {
+                entries.remove(key);
+                existing = null;
+            }
+            if (existing == null) {
+                if (entries.size() >= maxSize && !evictOne(now)) {
+                    throw new TooManyRequestsException("Too many idempotent requests in progress, retry later");
+                }
+                entries.put(key, entry);
+            }
+        }
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new BadRequestException(HEADER + " already used for a different request");
+            }
+            return replay(await(existing.result));
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            entry.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            // les requêtes en attente reçoivent la même erreur
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // la plus ancienne entrée terminée ou expirée, jamais une requête en cours ; appelée sous verrou
+    private boolean evictOne(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry candidate = it.next();
+            if (candidate.result.isDone() || candidate.expiresAt - now <= 0) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new DuplicateResourceException("A request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> replay(ResponseEntity<?> stored) {
+        return (ResponseEntity<T>) ResponseEntity.status(stored.getStatusCode())
+                .headers(stored.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.getBody());
+    }
+
+    private record Entry(Object fingerprint, CompletableFuture<ResponseEntity<?>> result, long expiresAt) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.projetee.sallesmangement.service.ingestion;
+
+import com.projetee.sallesmangement.dto.sale.*;
+import com.projetee.sallesmangement.exception.ResourceNotFoundException;
+import com.projetee.sallesmangement.exception.TooManyRequestsException;
+import com.projetee.sallesmangement.service.SaleService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File d'attente bornée des ventes soumises en mode asynchrone.
+ * Quelques workers la vident par groupes et passent chaque groupe à
+ * {@link SaleService#createBatch} : une transaction et une connexion par groupe
+ * au lieu d'une par requête HTTP. File pleine : la soumission est refusée (429).
+ * Un groupe perdu sur une erreur technique remet ses tickets en file, jusqu'à
+ * max-attempts tentatives ; le client ne voit jamais le message de l'exception.
+ * Les tickets terminés sont conservés le temps de ticket-ttl.
+ */
+@Slf4j
+@Component
+public class SaleIngestionQueue {
+
+    private static final String PROCESSING_FAILED = "Sale could not be processed, please resubmit";
+
+    private final SaleService saleService;
+    private final int groupSize;
+    private final int maxAttempts;
+    private final Duration ticketTtl;
+
+    private final BlockingQueue<Ticket> queue;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    private volatile boolean running = true;
+
+    public SaleIngestionQueue(SaleService saleService,
+                              @Value("${sales.async.queue-capacity:10000}") int queueCapacity,
+                              @Value("${sales.async.workers:2}") int workerCount,
+                              @Value("${sales.async.group-size:100}") int groupSize,
+                              @Value("${sales.async.max-attempts:3}") int maxAttempts,
+                              @Value("${sales.async.ticket-ttl:PT15M}") Duration ticketTtl) {
+        this.saleService = saleService;
+        this.groupSize = groupSize;
+        this.maxAttempts = maxAttempts;
+        this.ticketTtl = ticketTtl;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "sale-ingestion-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    public SaleTicketResponse submit(SaleRequest request) {
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), request);
+        tickets.put(ticket.id, ticket);
+
+        if (!running || !queue.offer(ticket)) {
+            tickets.remove(ticket.id);
+            throw new TooManyRequestsException("Sale queue is full, retry later");
+        }
+        return ticket.toResponse();
+    }
+
+    public SaleTicketResponse getTicket(String id) {
+        Ticket ticket = tickets.get(id);
+        if (ticket == null) {
+            throw new ResourceNotFoundException("Ticket not found");
+        }
+        return ticket.toResponse();
+    }
+
+    @Scheduled(fixedDelayString = "${sales.async.purge-interval:PT1M}")
+    public void purgeExpiredTickets() {
+        LocalDateTime limit = LocalDateTime.now().minus(ticketTtl);
+        tickets.values().removeIf(t -> t.completedAt != null && t.completedAt.isBefore(limit));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        // file en mémoire : ce qui n'a pas été traité est perdu, le client doit resoumettre
+        List<Ticket> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(t -> t.fail("Server shutting down, sale not processed"));
+    }
+
+    private void drain() {
+        List<Ticket> group = new ArrayList<>(groupSize);
+        while (running) {
+            try {
+                Ticket first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, groupSize - 1);
+                process(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void process(List<Ticket> group) {
+
+        group.forEach(t -> {
+            t.status = SaleTicketStatus.PROCESSING;
+            t.attempts++;
+        });
+
+        try {
+            SaleBatchResponse response = saleService.createBatch(group.stream().map(t -> t.request).toList());
+            for (SaleBatchResult result : response.getResults()) {
+                Ticket ticket = group.get(result.getIndex());
+                if (result.isSuccess()) {
+                    ticket.complete(result.getSaleId(), result.getTotalAmount());
+                } else if (result.isRetryable()) {
+                    retryOrFail(ticket);
+                } else {
+                    ticket.fail(result.getError());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Async sale group of {} failed", group.size(), e);
+            group.forEach(this::retryOrFail);
+        }
+    }
+
+    // rien n'a été écrit pour ce ticket : il repasse en fin de file
+    private void retryOrFail(Ticket ticket) {
+        if (running && ticket.attempts < maxAttempts) {
+            ticket.status = SaleTicketStatus.QUEUED;
+            if (queue.offer(ticket)) {
+                return;
+            }
+        }
+        ticket.fail(PROCESSING_FAILED);
+    }
+
+    private static final class Ticket {
+
+        private final String id;
+        private final SaleRequest request;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+
+        private volatile SaleTicketStatus status = SaleTicketStatus.QUEUED;
+        // modifié par le seul worker qui tient le ticket
+        private int attempts;
+        private volatile Long saleId;
+        private volatile Double totalAmount;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private Ticket(String id, SaleRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private void complete(Long saleId, Double totalAmount) {
+            this.saleId = saleId;
+            this.totalAmount = totalAmount;
+            this.completedAt = LocalDateTime.now();
+            this.status = SaleTicketStatus.CREATED;
+        }
+
+        private void fail(String error) {
+            this.error = error;
+            this.completedAt = LocalDateTime.now();
+            this.status = SaleTicketStatus.FAILED;
+        }
+
+        private SaleTicketResponse toResponse() {
+            // statut lu en premier : écrit en dernier, les champs du résultat sont déjà visibles
+            SaleTicketStatus current = status;
+            SaleTicketResponse response = new SaleTicketResponse();
+            response.setTicketId(id);
+            response.setStatus(current);
+            response.setSubmittedAt(submittedAt);
+            if (current == SaleTicketStatus.CREATED || current == SaleTicketStatus.FAILED) {
+                response.setSaleId(saleId);
+                response.setTotalAmount(totalAmount);
+                response.setError(error);
+                response.setCompletedAt(completedAt);
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.projetee.sallesmangement.service.lock;
+
+import com.projetee.sallesmangement.dto.metrics.LockStatsResponse;
+import com.projetee.sallesmangement.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Verrous en mémoire répartis sur un nombre fixe de bandes, par clé (id de vente).
+ * Les modifications d'une même vente passent l'une après l'autre ; deux ventes
+ * différentes ne se gênent que si elles tombent sur la même bande.
+ * Ne protège qu'une instance : la version de la vente reste la garde en base.
+ * Un délai d'attente dépassé lève {@link TooManyRequestsException} (429) : ce n'est pas
+ * un conflit de concurrence, {@code ConflictRetrier} ne le rejoue pas et le thread est rendu.
+ */
+@Component
+public class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final Duration timeout;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public StripedLocks(@Value("${sales.line-locks.stripes:64}") int stripeCount,
+                        @Value("${sales.line-locks.timeout:PT5S}") Duration timeout) {
+        // puissance de deux : l'index est un simple masque
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeout = timeout;
+    }
+
+    public <T> T withLock(long key, Supplier<T> action) {
+
+        ReentrantLock lock = stripes[index(key)];
+        acquisitions.increment();
+
+        if (!lock.tryLock()) {
+            contended.increment();
+            long start = System.nanoTime();
+            try {
+                if (!lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new TooManyRequestsException("Sale " + key + " is busy, please retry");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TooManyRequestsException("Interrupted while waiting for sale " + key);
+            } finally {
+                waitNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public LockStatsResponse stats() {
+        LockStatsResponse dto = new LockStatsResponse();
+        dto.setStripes(stripes.length);
+        dto.setAcquisitions(acquisitions.sum());
+        dto.setContended(contended.sum());
+        dto.setTotalWaitMillis(TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+        return dto;
+    }
+
+    private int index(long key) {
+        // mélange des bits : des ids consécutifs tombent sur des bandes éloignées
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.projetee.sallesmangement.service.outbox;
+
+import com.projetee.sallesmangement.dto.analytics.LowStockAlertResponse;
+import com.projetee.sallesmangement.dto.outbox.SaleEventLine;
+import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Alerte quand une vente fait passer un produit sous le seuil de stock.
+ * Un seul chargement des produits concernés par lot d'évènements ;
+ * les dernières alertes restent consultables en mémoire.
+ */
+@Slf4j
+@Component
+public class LowStockAlertListener implements OutboxListener {
+
+    private static final int MAX_ALERTS = 100;
+
+    private final ProductRepository productRepo;
+    private final int threshold;
+
+    private final Deque<LowStockAlertResponse> alerts = new ArrayDeque<>();
+
+    public LowStockAlertListener(ProductRepository productRepo,
+                                 @Value("${outbox.low-stock.threshold:5}") int threshold) {
+        this.productRepo = productRepo;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public String name() {
+        return "low-stock-alert";
+    }
+
+    @Override
+    public void onEvents(List<OutboxMessage> messages) {
+
+        // produit -> dernière vente qui en a retiré du stock
+        Map<Long, Long> soldBy = new HashMap<>();
+        for (OutboxMessage message : messages) {
+            for (SaleEventLine line : message.payload().getLines()) {
+                if (line.getQuantityDelta() > 0) {
+                    soldBy.put(line.getProductId(), message.payload().getSaleId());
+                }
+            }
+        }
+        if (soldBy.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Product product : productRepo.findByIdInOrderByIdAsc(soldBy.keySet())) {
+            if (product.getStock() > threshold) {
+                continue;
+            }
+            log.warn("Low stock for product {} ({}): {} left", product.getId(), product.getTitle(), product.getStock());
+
+            LowStockAlertResponse alert = new LowStockAlertResponse();
+            alert.setProductId(product.getId());
+            alert.setTitle(product.getTitle());
+            alert.setStock(product.getStock());
+            alert.setSaleId(soldBy.get(product.getId()));
+            alert.setDetectedAt(now);
+            synchronized (alerts) {
+                alerts.addFirst(alert);
+                if (alerts.size() > MAX_ALERTS) {
+                    alerts.removeLast();
+                }
+            }
+        }
+    }
+
+    public List<LowStockAlertResponse> recentAlerts() {
+        synchronized (alerts) {
+            return new ArrayList<>(alerts);
+        }
+    }
+}
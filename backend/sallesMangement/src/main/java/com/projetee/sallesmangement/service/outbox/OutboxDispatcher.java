@@ -0,0 +1,213 @@
+package com.projetee.sallesmangement.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projetee.sallesmangement.dto.metrics.OutboxStatusResponse;
+import com.projetee.sallesmangement.dto.outbox.SaleEventPayload;
+import com.projetee.sallesmangement.entity.OutboxEvent;
+import com.projetee.sallesmangement.entity.OutboxGap;
+import com.projetee.sallesmangement.entity.OutboxOffset;
+import com.projetee.sallesmangement.repository.OutboxEventRepository;
+import com.projetee.sallesmangement.repository.OutboxGapRepository;
+import com.projetee.sallesmangement.repository.OutboxOffsetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Distribue l'outbox aux {@link OutboxListener} par lots.
+ * Chaque écouteur a son offset en base : il reprend là où il s'était arrêté
+ * après un redémarrage, et un écouteur en échec ne bloque pas les autres.
+ * Le lot et l'avancement de l'offset partagent une transaction, sous verrou
+ * de la ligne d'offset.
+ * Les écrivains ne se synchronisent pas entre eux : un id peut manquer tant que
+ * sa transaction n'est pas commitée. La distribution s'arrête devant un tel trou
+ * et ne le saute qu'une fois l'évènement suivant plus vieux que {@code outbox.dispatch.gap-timeout}.
+ * Un id sauté est noté ({@link OutboxGap}) et recherché à chaque lot : une transaction
+ * plus longue que ce délai est distribuée en retard, jamais perdue. Le délai ne règle
+ * que l'attente de l'ordre ; seul un trou plus vieux que {@code outbox.retention} est oublié.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+
+    private final List<OutboxListener> listeners;
+    private final OutboxEventRepository eventRepo;
+    private final OutboxOffsetRepository offsetRepo;
+    private final OutboxGapRepository gapRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${outbox.dispatch.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.dispatch.max-batches:10}")
+    private int maxBatchesPerRun;
+
+    // attente d'un id manquant avant de le sauter (il reste recherché ensuite)
+    @Value("${outbox.dispatch.gap-timeout:PT30S}")
+    private Duration gapTimeout;
+
+    @Value("${outbox.retention:P7D}")
+    private Duration retention;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerListeners() {
+        for (OutboxListener listener : listeners) {
+            if (offsetRepo.existsById(listener.name())) {
+                continue;
+            }
+            try {
+                // départ juste avant le plus ancien évènement conservé : les ids déjà purgés
+                // ne sont pas pris pour des trous
+                offsetRepo.save(new OutboxOffset(listener.name(), eventRepo.findOldestId() - 1, LocalDateTime.now()));
+            } catch (DataIntegrityViolationException ignored) {
+                // créé au même moment par une autre instance
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch.interval:PT1S}")
+    public void dispatch() {
+        for (OutboxListener listener : listeners) {
+            try {
+                for (int i = 0; i < maxBatchesPerRun; i++) {
+                    Integer dispatched = transactionTemplate.execute(status -> dispatchBatch(listener));
+                    if (dispatched == null || dispatched < batchSize) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // offset inchangé : le même lot sera redistribué au prochain passage
+                log.warn("Outbox listener {} failed", listener.name(), e);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${outbox.purge.cron:0 30 3 * * *}")
+    public void purge() {
+        transactionTemplate.executeWithoutResult(status -> {
+            long processed = listeners.stream()
+                    .map(l -> offsetRepo.findById(l.name()).map(OutboxOffset::getLastEventId).orElse(0L))
+                    .min(Long::compare)
+                    .orElse(0L);
+            LocalDateTime before = LocalDateTime.now().minus(retention);
+            gapRepo.deleteSkippedBefore(before);
+            eventRepo.deleteProcessed(processed, before);
+        });
+    }
+
+    public List<OutboxStatusResponse> status() {
+        long latest = eventRepo.findLatestId();
+        return listeners.stream()
+                .map(l -> {
+                    OutboxOffset offset = offsetRepo.findById(l.name())
+                            .orElse(new OutboxOffset(l.name(), 0, null));
+                    OutboxStatusResponse dto = new OutboxStatusResponse();
+                    dto.setListener(offset.getListener());
+                    dto.setLastEventId(offset.getLastEventId());
+                    dto.setPendingEvents(Math.max(0, latest - offset.getLastEventId()));
+                    dto.setOpenGaps(gapRepo.countByListener(l.name()));
+                    dto.setUpdatedAt(offset.getUpdatedAt());
+                    return dto;
+                })
+                .toList();
+    }
+
+    private int dispatchBatch(OutboxListener listener) {
+
+        OutboxOffset offset = offsetRepo.findForUpdate(listener.name()).orElse(null);
+        if (offset == null) {
+            return 0;
+        }
+
+        // évènements sautés puis commités depuis : livrés en tête du lot
+        List<OutboxEvent> late = lateEvents(listener.name());
+
+        List<Long> skipped = new ArrayList<>();
+        List<OutboxEvent> events = readyEvents(offset.getLastEventId(),
+                eventRepo.findByIdGreaterThanOrderByIdAsc(offset.getLastEventId(), Limit.of(batchSize)), skipped);
+        if (late.isEmpty() && events.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> batch = new ArrayList<>(late);
+        batch.addAll(events);
+        listener.onEvents(batch.stream().map(this::toMessage).toList());
+
+        // trous mis à jour dans la transaction de l'offset : rien n'est perdu si le lot échoue
+        if (!late.isEmpty()) {
+            gapRepo.deleteByListenerAndEventIdIn(listener.name(), late.stream().map(OutboxEvent::getId).toList());
+        }
+        if (!skipped.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            gapRepo.saveAll(skipped.stream()
+                    .map(id -> new OutboxGap(null, listener.name(), id, now))
+                    .toList());
+        }
+
+        if (!events.isEmpty()) {
+            offset.setLastEventId(events.get(events.size() - 1).getId());
+        }
+        offset.setUpdatedAt(LocalDateTime.now());
+        // les évènements en retard ne comptent pas : un lot plein signifie qu'il reste des ids à lire
+        return events.size();
+    }
+
+    private List<OutboxEvent> lateEvents(String listener) {
+        List<Long> gaps = gapRepo.findEventIdsByListener(listener);
+        if (gaps.isEmpty()) {
+            return List.of();
+        }
+        List<OutboxEvent> late = eventRepo.findByIdInOrderByIdAsc(gaps);
+        if (!late.isEmpty()) {
+            log.info("Outbox events {} committed after being skipped, dispatched late to {}",
+                    late.stream().map(OutboxEvent::getId).toList(), listener);
+        }
+        return late;
+    }
+
+    // préfixe du lot sans trou, ou dont les trous ont dépassé le délai de commit ;
+    // les ids sautés sont ajoutés à skipped
+    private List<OutboxEvent> readyEvents(long lastEventId, List<OutboxEvent> events, List<Long> skipped) {
+        LocalDateTime gapDeadline = LocalDateTime.now().minus(gapTimeout);
+        long expected = lastEventId + 1;
+        int ready = 0;
+        for (OutboxEvent event : events) {
+            if (event.getId() != expected) {
+                // l'id manquant a été tiré avant cet évènement : sa transaction est au moins aussi vieille
+                if (event.getCreatedAt().isAfter(gapDeadline)) {
+                    break;
+                }
+                log.info("Outbox ids {}..{} not committed yet, skipped and watched", expected, event.getId() - 1);
+                LongStream.range(expected, event.getId()).forEach(skipped::add);
+            }
+            expected = event.getId() + 1;
+            ready++;
+        }
+        return events.subList(0, ready);
+    }
+
+    private OutboxMessage toMessage(OutboxEvent event) {
+        try {
+            return new OutboxMessage(event.getId(), event.getType(), event.getCreatedAt(),
+                    objectMapper.readValue(event.getPayload(), SaleEventPayload.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.projetee.sallesmangement.service.outbox;
+
+import java.util.List;
+
+/**
+ * Consommateur des évènements de l'outbox. Les évènements arrivent par lots,
+ * dans l'ordre des ids, au moins une fois : un lot en échec est redistribué.
+ * Seule exception à l'ordre : un évènement commité après que la distribution
+ * a dépassé son id arrive plus tard, en tête d'un lot suivant.
+ */
+public interface OutboxListener {
+
+    // clé de l'offset en base : ne pas la changer une fois déployée
+    String name();
+
+    void onEvents(List<OutboxMessage> messages);
+}
@@ -0,0 +1,9 @@
+package com.projetee.sallesmangement.service.outbox;
+
+import com.projetee.sallesmangement.dto.outbox.SaleEventPayload;
+import com.projetee.sallesmangement.entity.OutboxEventType;
+
+import java.time.LocalDateTime;
+
+public record OutboxMessage(long id, OutboxEventType type, LocalDateTime createdAt, SaleEventPayload payload) {
+}
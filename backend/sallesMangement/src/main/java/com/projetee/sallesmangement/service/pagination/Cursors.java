@@ -0,0 +1,84 @@
+package com.projetee.sallesmangement.service.pagination;
+
+import com.projetee.sallesmangement.dto.common.CursorPageResponse;
+import com.projetee.sallesmangement.exception.BadRequestException;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Curseurs opaques pour la pagination par clé (keyset) : le curseur contient la clé
+ * de tri de la dernière ligne renvoyée, la page suivante repart de là via l'index
+ * au lieu de sauter OFFSET lignes.
+ */
+public final class Cursors {
+
+    public static final int MAX_SIZE = 100;
+
+    private Cursors() {
+    }
+
+    public static String encode(long id) {
+        return encode(id, null);
+    }
+
+    // "id:valeur" en base64url : l'id d'abord, la valeur (titre...) peut contenir ':'
+    public static String encode(long id, Object sortValue) {
+        String raw = sortValue == null ? Long.toString(id) : id + ":" + sortValue;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Key decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return sep < 0
+                    ? new Key(Long.parseLong(raw), null)
+                    : new Key(Long.parseLong(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    // une ligne de plus que demandé : sa présence indique qu'une page suivante existe
+    public static Limit limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new BadRequestException("size must be between 1 and " + MAX_SIZE);
+        }
+        return Limit.of(size + 1);
+    }
+
+    public static <E, R> CursorPageResponse<R> page(List<E> rows, int size,
+                                                    Function<E, R> mapper,
+                                                    Function<E, String> cursorOf,
+                                                    Long total) {
+        boolean hasNext = rows.size() > size;
+        List<E> content = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPageResponse<>(content.stream().map(mapper).toList(), next, hasNext, total);
+    }
+
+    public record Key(long id, String value) {
+
+        public String text() {
+            if (value == null) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return value;
+        }
+
+        public LocalDate date() {
+            try {
+                return LocalDate.parse(text());
+            } catch (DateTimeParseException ex) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
+}
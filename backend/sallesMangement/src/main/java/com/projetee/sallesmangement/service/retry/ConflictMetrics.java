@@ -0,0 +1,54 @@
+package com.projetee.sallesmangement.service.retry;
+
+import com.projetee.sallesmangement.dto.metrics.ConflictStatsResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs des conflits de concurrence vus par {@link ConflictRetrier}.
+ */
+@Component
+public class ConflictMetrics {
+
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    private final Map<String, AtomicLong> conflictsByOperation = new ConcurrentHashMap<>();
+
+    void conflict(String operation) {
+        conflicts.increment();
+        conflictsByOperation.computeIfAbsent(operation, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    void retry() {
+        retries.increment();
+    }
+
+    void recovered() {
+        recovered.increment();
+    }
+
+    void exhausted() {
+        exhausted.increment();
+    }
+
+    public ConflictStatsResponse stats() {
+        ConflictStatsResponse dto = new ConflictStatsResponse();
+        dto.setConflicts(conflicts.sum());
+        dto.setRetries(retries.sum());
+        dto.setRecovered(recovered.sum());
+        dto.setExhausted(exhausted.sum());
+
+        Map<String, Long> byOperation = new TreeMap<>();
+        conflictsByOperation.forEach((operation, count) -> byOperation.put(operation, count.get()));
+        dto.setConflictsByOperation(byOperation);
+        return dto;
+    }
+}
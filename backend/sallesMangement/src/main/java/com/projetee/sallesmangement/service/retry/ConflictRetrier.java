@@ -0,0 +1,76 @@
+package com.projetee.sallesmangement.service.retry;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Boucle de rejeu sur conflit de concurrence, partagée par {@link ConflictRetryAspect}
+ * et par le code qui ouvre lui-même ses transactions (TransactionTemplate).
+ * L'action doit ouvrir et valider sa propre transaction à chaque tentative.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConflictRetrier {
+
+    // mêmes valeurs par défaut que @RetryOnConflict
+    private static final int DEFAULT_MAX_ATTEMPTS = 4;
+    private static final long DEFAULT_BACKOFF_MILLIS = 20;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 500;
+
+    private final ConflictMetrics metrics;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        try {
+            return retry(operation, DEFAULT_MAX_ATTEMPTS, DEFAULT_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, action::get);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // un Supplier ne lève pas d'exception vérifiée
+            throw new IllegalStateException(e);
+        }
+    }
+
+    <T> T retry(String operation, int maxAttempts, long backoffMillis, long maxBackoffMillis,
+                Attempt<T> action) throws Throwable {
+
+        long backoff = backoffMillis;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = action.run();
+                if (attempt > 1) {
+                    metrics.recovered();
+                }
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                metrics.conflict(operation);
+                if (attempt >= maxAttempts) {
+                    metrics.exhausted();
+                    throw e;
+                }
+                metrics.retry();
+                // attente aléatoire : les transactions en conflit ne repartent pas ensemble
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1), e);
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    private static void sleep(long millis, RuntimeException conflict) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    @FunctionalInterface
+    interface Attempt<T> {
+        T run() throws Throwable;
+    }
+}
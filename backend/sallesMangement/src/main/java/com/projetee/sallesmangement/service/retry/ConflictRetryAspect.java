@@ -0,0 +1,38 @@
+package com.projetee.sallesmangement.service.retry;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Applique {@link RetryOnConflict}. Placé devant l'intercepteur transactionnel :
+ * chaque tentative ouvre et valide sa propre transaction, de sorte qu'un conflit
+ * détecté au commit est lui aussi rejoué.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class ConflictRetryAspect {
+
+    private final ConflictRetrier retrier;
+
+    @Around("@annotation(policy)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict policy) throws Throwable {
+
+        // appelée dans une transaction englobante : seul l'appelant peut rejouer
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        return retrier.retry(operation, policy.maxAttempts(), policy.backoffMillis(), policy.maxBackoffMillis(),
+                joinPoint::proceed);
+    }
+}
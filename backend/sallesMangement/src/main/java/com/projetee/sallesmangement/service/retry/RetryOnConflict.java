@@ -0,0 +1,22 @@
+package com.projetee.sallesmangement.service.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rejoue la méthode (et sa transaction) quand elle échoue sur un conflit de
+ * concurrence : version optimiste périmée, verrou non obtenu, deadlock.
+ * La méthode doit pouvoir être rejouée depuis le début sans effet de bord.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int maxAttempts() default 4;
+
+    long backoffMillis() default 20;
+
+    long maxBackoffMillis() default 500;
+}
@@ -0,0 +1,15 @@
+package com.projetee.sallesmangement.service.search;
+
+import com.projetee.sallesmangement.repository.projection.ProductSearchRow;
+
+/**
+ * Ce que l'index garde d'un produit : les champs recherchés et ceux qui départagent les résultats.
+ */
+public record ProductSearchDocument(Long id, String title, String asin,
+                                    Double rating, Integer reviewCount, Integer rank) {
+
+    public static ProductSearchDocument of(ProductSearchRow row) {
+        return new ProductSearchDocument(row.getId(), row.getTitle(), row.getAsin(),
+                row.getRating(), row.getReviewCount(), row.getRank());
+    }
+}
@@ -0,0 +1,234 @@
+package com.projetee.sallesmangement.service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire sur le titre et l'ASIN des produits.
+ * Les textes sont découpés en mots, mis en minuscules et sans accents. Chaque mot de la
+ * requête doit correspondre à un mot du produit : exactement, en préfixe, ou à une faute
+ * de frappe près (similarité des trigrammes). Le score départage d'abord, puis la note,
+ * le nombre d'avis et le classement.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final double ASIN_WEIGHT = 2.0;
+    private static final double EXACT_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.5;
+
+    // en dessous, deux mots sont trop différents pour être une faute de frappe
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    // à score égal : meilleure note, plus d'avis, meilleur classement (rang le plus petit)
+    private static final Comparator<ProductSearchDocument> TIE_BREAKER = Comparator
+            .comparing(ProductSearchDocument::rating, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ProductSearchDocument::reviewCount, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ProductSearchDocument::rank, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ProductSearchDocument::id);
+
+    private final Map<Long, ProductSearchDocument> documents = new HashMap<>();
+    private final Map<Long, Set<String>> documentTokens = new HashMap<>();
+    // trié : les mots commençant par un préfixe forment un intervalle
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<String, Long> asins = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(ProductSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            unindex(document.id());
+            index(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            unindex(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replaceAll(Collection<ProductSearchDocument> all) {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            documentTokens.clear();
+            postings.clear();
+            trigrams.clear();
+            asins.clear();
+            all.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids des produits correspondants, du plus pertinent au moins pertinent. */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : new LinkedHashSet<>(terms)) {
+                Map<Long, Double> termScores = match(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // tous les mots de la requête doivent correspondre
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Map<Long, Double> finalScores = scores;
+            Comparator<Long> ranking = Comparator
+                    .<Long>comparingDouble(finalScores::get).reversed()
+                    .thenComparing(id -> documents.get(id), TIE_BREAKER);
+            return scores.keySet().stream()
+                    .sorted(ranking)
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // meilleure correspondance de chaque produit pour un mot de la requête
+    private Map<Long, Double> match(String term) {
+        Map<Long, Double> scores = new HashMap<>();
+
+        Long asinMatch = asins.get(term);
+        if (asinMatch != null) {
+            scores.merge(asinMatch, ASIN_WEIGHT, Math::max);
+        }
+
+        for (Map.Entry<String, Set<Long>> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            double weight = entry.getKey().equals(term) ? EXACT_WEIGHT : PREFIX_WEIGHT;
+            for (Long id : entry.getValue()) {
+                scores.merge(id, weight, Math::max);
+            }
+        }
+
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> termGrams = trigramsOf(term);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : termGrams) {
+                for (String token : trigrams.getOrDefault(gram, Set.of())) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+                int common = candidate.getValue();
+                int union = termGrams.size() + trigramsOf(candidate.getKey()).size() - common;
+                double similarity = (double) common / union;
+                if (similarity >= MIN_SIMILARITY) {
+                    for (Long id : postings.get(candidate.getKey())) {
+                        scores.merge(id, FUZZY_WEIGHT * similarity, Math::max);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void index(ProductSearchDocument document) {
+        Set<String> tokens = new HashSet<>(tokenize(document.title()));
+        String asin = normalize(document.asin());
+        if (!asin.isBlank()) {
+            asins.put(asin, document.id());
+            // l'ASIN reste aussi cherchable par préfixe
+            tokens.addAll(tokenize(asin));
+        }
+
+        documents.put(document.id(), document);
+        documentTokens.put(document.id(), tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> {
+                trigramsOf(t).forEach(gram -> trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(t));
+                return new HashSet<>();
+            }).add(document.id());
+        }
+    }
+
+    private void unindex(Long productId) {
+        ProductSearchDocument previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        asins.remove(normalize(previous.asin()), productId);
+        for (String token : documentTokens.remove(productId)) {
+            Set<Long> ids = postings.get(token);
+            ids.remove(productId);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+                for (String gram : trigramsOf(token)) {
+                    Set<String> tokens = trigrams.get(gram);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        if (normalized.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    // bordé d'espaces : le début et la fin du mot comptent comme des trigrammes
+    private static Set<String> trigramsOf(String token) {
+        String padded = " " + token + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,39 @@
+package com.projetee.sallesmangement.service.search;
+
+import com.projetee.sallesmangement.event.ProductChangedEvent;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Construit l'index de recherche au démarrage, puis le tient à jour après chaque
+ * création, modification ou suppression de produit validée.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndexer {
+
+    private final ProductRepository productRepo;
+    private final ProductSearchIndex index;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        index.replaceAll(productRepo.findSearchRows().stream()
+                .map(ProductSearchDocument::of)
+                .toList());
+        log.info("Product search index built with {} products", index.size());
+    }
+
+    // relu depuis la base après commit : l'index ne voit jamais une modification annulée
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productRepo.findSearchRowById(event.productId())
+                .map(ProductSearchDocument::of)
+                .ifPresentOrElse(index::put, () -> index.remove(event.productId()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.projetee.sallesmangement.service.stock;
+
+import com.projetee.sallesmangement.service.StockLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Ouvre le journal de stock au démarrage (solde de départ des produits
+ * existants) puis pose périodiquement un point de stock par produit.
+ * Le point est pris avec un décalage : les mouvements horodatés avant lui
+ * mais pas encore validés doivent avoir été commités.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedgerScheduler {
+
+    private final StockLedgerService ledgerService;
+
+    @Value("${stock.snapshot.lag:PT5M}")
+    private Duration snapshotLag;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openLedger() {
+        int opened = ledgerService.recordOpeningBalances();
+        if (opened > 0) {
+            log.info("Stock ledger opened for {} products", opened);
+        }
+    }
+
+    @Scheduled(cron = "${stock.snapshot.cron:0 0 * * * *}")
+    public void takeSnapshot() {
+        try {
+            ledgerService.takeSnapshot(LocalDateTime.now().minus(snapshotLag));
+        } catch (DataIntegrityViolationException ignored) {
+            // même point déjà posé par une autre instance
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.projetee.sallesmangement.service.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Écrit un tableau JSON élément par élément à partir d'une requête Stream<> :
+ * chaque entité est convertie, sérialisée puis détachée du contexte de persistance,
+ * la réponse est vidée tous les flushEvery éléments. Ni la liste d'entités, ni la liste
+ * de DTO, ni le document JSON complet ne sont gardés en mémoire.
+ * À appeler dans une transaction : le curseur de la requête reste ouvert pendant l'écriture.
+ */
+@Component
+public class JsonArrayStreamer {
+
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final int flushEvery;
+
+    public JsonArrayStreamer(ObjectMapper objectMapper,
+                             EntityManager entityManager,
+                             @Value("${streaming.json.flush-every:200}") int flushEvery) {
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.flushEvery = flushEvery;
+    }
+
+    public <E, R> long write(Stream<E> entities, Function<E, R> mapper, OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<E> stream = entities;
+             JsonGenerator generator = objectMapper.createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            Iterator<E> it = stream.iterator();
+            while (it.hasNext()) {
+                E entity = it.next();
+                generator.writeObject(mapper.apply(entity));
+                entityManager.detach(entity);
+                if (++written % flushEvery == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,182 @@
+package com.projetee.sallesmangement.controller;
+
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.SaleRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.service.SaleService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// nombre de requêtes SQL par endpoint de lecture : ne doit pas dépendre de la taille de la page
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:read-queries;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class ReadQueryCountTest {
+
+    private static final int SALES = 12;
+
+    private static final StatementCounter COUNTER = new StatementCounter();
+
+    @TestConfiguration
+    static class CounterConfig {
+
+        @Bean
+        HibernatePropertiesCustomizer statementCounter() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, COUNTER);
+        }
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private SaleRepository saleRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @BeforeEach
+    void seed() {
+        if (saleRepo.count() > 0) {
+            return;
+        }
+        List<Product> products = new ArrayList<>();
+        for (int c = 0; c < 2; c++) {
+            Category category = categoryRepo.save(Category.builder().name("Reads " + c).build());
+            for (int p = 0; p < 3; p++) {
+                products.add(productRepo.save(Product.builder()
+                        .asin("READ-" + c + p).title("Read product " + c + p).price(5.0)
+                        .category(category).stock(1000).build()));
+            }
+        }
+        User seller = userRepo.save(User.builder()
+                .username("reader").email("reader@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        for (int i = 0; i < SALES; i++) {
+            SaleRequest request = new SaleRequest();
+            request.setUserId(seller.getId());
+            request.setLignes(List.of(
+                    lineOf(products.get(i % products.size()).getId()),
+                    lineOf(products.get((i + 1) % products.size()).getId())));
+            saleService.create(request);
+        }
+    }
+
+    @Test
+    void saleReadsDoNotLoadLinesPerSale() throws Exception {
+        Long id = saleRepo.findAll().get(0).getId();
+
+        // flux : une seule requête, lignes d'une même vente regroupées
+        assertStatements(1, "/api/sales")
+                .andExpect(jsonPath("$.length()").value(SALES))
+                .andExpect(jsonPath("$[0].lignes.length()").value(2));
+        assertStatements(1, "/api/sales/" + id);
+        // ids de la page, COUNT, puis graphe complet
+        assertStatements(3, "/api/sales/page?size=5");
+        assertStatements(2, "/api/sales/cursor?size=5");
+    }
+
+    @Test
+    void productReadsJoinCategory() throws Exception {
+        Long id = productRepo.findAll().get(0).getId();
+
+        assertStatements(1, "/api/products")
+                .andExpect(jsonPath("$.length()").value(6));
+        assertStatements(1, "/api/categories");
+        assertStatements(1, "/api/users");
+        assertStatements(1, "/api/products/" + id);
+        assertStatements(2, "/api/products/page?size=4");
+        assertStatements(1, "/api/products/cursor?size=4");
+    }
+
+    @Test
+    void lineReadsJoinProductAndSale() throws Exception {
+        assertStatements(2, "/api/ligne-ventes?size=10");
+        assertStatements(1, "/api/ligne-ventes/cursor?size=10");
+    }
+
+    private ResultActions assertStatements(int expected, String url) throws Exception {
+        COUNTER.start();
+        try {
+            ResultActions actions = mvc.perform(get(url));
+            MvcResult result = actions.andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                actions = mvc.perform(asyncDispatch(result));
+            }
+            return actions.andExpect(status().isOk());
+        } finally {
+            List<String> statements = COUNTER.stop();
+            assertEquals(expected, statements.size(), url + " -> " + String.join("\n", statements));
+        }
+    }
+
+    private static LigneVenteRequest lineOf(Long productId) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(1);
+        return line;
+    }
+
+    // compte les requêtes du thread de test et des threads MVC asynchrones (réponses en flux),
+    // pas celles des tâches planifiées qui tournent à côté
+    static final class StatementCounter implements StatementInspector {
+
+        private volatile Thread owner;
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            Thread current = Thread.currentThread();
+            if (owner != null && (current == owner || current.getName().startsWith("task-"))) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        void start() {
+            statements.clear();
+            owner = Thread.currentThread();
+        }
+
+        List<String> stop() {
+            owner = null;
+            return new ArrayList<>(statements);
+        }
+    }
+}
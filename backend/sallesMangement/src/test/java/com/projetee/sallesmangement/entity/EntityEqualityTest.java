@@ -0,0 +1,62 @@
+package com.projetee.sallesmangement.entity;
+
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityEqualityTest {
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Test
+    void detachedEntitiesHashWithoutLoadingCollections() {
+
+        Category saved = categoryRepo.save(Category.builder().name("Equality").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("EQ-1").title("Equality product").price(1.0)
+                .category(saved).stock(1).build());
+
+        // hors transaction : products et lignesVente restent des collections non chargées
+        Category category = categoryRepo.findById(saved.getId()).orElseThrow();
+        Product loaded = productRepo.findById(product.getId()).orElseThrow();
+
+        Map<Category, Long> byCategory = new HashMap<>();
+        byCategory.merge(category, 1L, Long::sum);
+        byCategory.merge(loaded.getCategory(), 1L, Long::sum);
+
+        assertEquals(Map.of(category, 2L), byCategory);
+        assertEquals(loaded, product);
+        assertEquals(loaded.hashCode(), product.hashCode());
+    }
+
+    @Test
+    void transientEntitiesAreOnlyEqualToThemselves() {
+
+        Category category = Category.builder().name("Transient").build();
+        Product first = Product.builder().asin("EQ-T1").title("Transient 1").price(1.0).category(category).build();
+        Product second = Product.builder().asin("EQ-T1").title("Transient 1").price(1.0).category(category).build();
+
+        assertNotEquals(first, second);
+
+        // hashCode ne dépend pas de l'id : l'entité reste retrouvable une fois persistée
+        Set<Category> categories = new HashSet<>(Set.of(category));
+        categoryRepo.save(category);
+        assertTrue(categories.contains(category));
+    }
+}
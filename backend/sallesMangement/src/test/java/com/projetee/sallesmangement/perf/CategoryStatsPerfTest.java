@@ -0,0 +1,108 @@
+package com.projetee.sallesmangement.perf;
+
+import com.projetee.sallesmangement.entity.Category;
+import com.projetee.sallesmangement.entity.Product;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.service.Impl.AnalyticsServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statistiques par catégorie sur un volume de ventes fixe, réparti sur de plus en plus de catégories :
+ * le calcul en une passe ne dépend que du nombre de couples (catégorie, produit).
+ */
+@Slf4j
+@Tag("perf")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:perf-category-stats;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class CategoryStatsPerfTest {
+
+    private static final int PRODUCTS = 2_000;
+    private static final int DAYS = 30;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private AnalyticsServiceImpl analyticsService;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void responseTimeStaysFlatAsCategoriesGrow() {
+
+        Category seed = categoryRepo.save(Category.builder().name("Perf seed").build());
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .asin("PERF-" + i).title("Perf product " + i).price(1.0 + i % 97)
+                    .category(seed).stock(0).build());
+        }
+        List<Long> productIds = productRepo.saveAll(products).stream().map(Product::getId).toList();
+
+        // PRODUCTS × DAYS lignes de rollup, identiques pour chaque mesure
+        LocalDate start = LocalDate.now().minusDays(DAYS);
+        List<Object[]> rows = new ArrayList<>();
+        for (int d = 0; d < DAYS; d++) {
+            for (Long productId : productIds) {
+                rows.add(new Object[]{Date.valueOf(start.plusDays(d)), productId, seed.getId(),
+                        1 + productId % 5, (1 + productId % 5) * 10.0, 1});
+            }
+        }
+        jdbc.batchUpdate("""
+                insert into daily_sales_rollup (sale_date, product_id, category_id, quantity, revenue, sale_count)
+                values (?, ?, ?, ?, ?, ?)
+                """, rows);
+
+        List<Long> averages = new ArrayList<>();
+        for (int categories : new int[]{10, 100, 1_000}) {
+            spreadOver(categories, productIds);
+
+            assertEquals(categories, analyticsService.getCategoryStats().size());
+            long started = System.nanoTime();
+            for (int run = 0; run < RUNS; run++) {
+                analyticsService.getCategoryStats();
+            }
+            long averageMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started) / RUNS;
+            averages.add(averageMicros);
+            log.info("category stats: {} categories, {} rollup rows, {} us per call",
+                    categories, rows.size(), averageMicros);
+        }
+
+        // x100 catégories à volume égal : le temps ne doit pas suivre
+        assertTrue(averages.get(2) < averages.get(0) * 3, "category stats grew with categories: " + averages);
+    }
+
+    private void spreadOver(int categories, List<Long> productIds) {
+        List<Long> categoryIds = new ArrayList<>();
+        for (int c = 0; c < categories; c++) {
+            categoryIds.add(categoryRepo.save(Category.builder().name("Perf " + categories + "-" + c).build()).getId());
+        }
+        List<Object[]> assignments = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            assignments.add(new Object[]{categoryIds.get(i % categories), productIds.get(i)});
+        }
+        jdbc.batchUpdate("update product set category_id = ? where id = ?", assignments);
+        jdbc.batchUpdate("update daily_sales_rollup set category_id = ? where product_id = ?", assignments);
+    }
+}
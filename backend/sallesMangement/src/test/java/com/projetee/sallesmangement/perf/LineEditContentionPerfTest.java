@@ -0,0 +1,144 @@
+package com.projetee.sallesmangement.perf;
+
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.metrics.LockStatsResponse;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.LigneVenteRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.SaleRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.service.LigneVenteService;
+import com.projetee.sallesmangement.service.SaleService;
+import com.projetee.sallesmangement.service.lock.StripedLocks;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Éditions de lignes concurrentes : toutes sur une vente, puis réparties sur 8 ventes.
+ * Les éditions d'une même vente passent l'une après l'autre, des ventes différentes en parallèle.
+ */
+@Slf4j
+@Tag("perf")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:perf-line-edits;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class LineEditContentionPerfTest {
+
+    private static final int THREADS = 8;
+    private static final int EDITS = 400;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private LigneVenteService ligneVenteService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private SaleRepository saleRepo;
+
+    @Autowired
+    private LigneVenteRepository ligneRepo;
+
+    @Autowired
+    private StripedLocks saleLocks;
+
+    @Test
+    void editsOnDifferentSalesDoNotQueueBehindEachOther() throws Exception {
+
+        Category category = categoryRepo.save(Category.builder().name("Contention").build());
+        User seller = userRepo.save(User.builder()
+                .username("contention").email("contention@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        // un produit par vente : seule la vente est partagée, pas la ligne de stock
+        List<Long> sales = new ArrayList<>();
+        List<Long> products = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Product product = productRepo.save(Product.builder()
+                    .asin("CONT-" + i).title("Contention product " + i).price(1.0)
+                    .category(category).stock(100_000).build());
+            products.add(product.getId());
+            sales.add(saleService.create(saleOf(seller.getId(), product.getId())).getId());
+        }
+
+        // chauffe
+        runLineAdds(sales, products, EDITS / 4);
+
+        long[] contended = new long[2];
+        List<List<Long>> scenarios = List.of(sales.subList(0, 1), sales);
+        for (int s = 0; s < scenarios.size(); s++) {
+            List<Long> targets = scenarios.get(s);
+            LockStatsResponse before = saleLocks.stats();
+            long started = System.nanoTime();
+            runLineAdds(targets, products, EDITS);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            LockStatsResponse after = saleLocks.stats();
+
+            contended[s] = after.getContended() - before.getContended();
+            log.info("line edits: {} on {} sale(s) from {} threads in {} ms, {} contended, {} ms waiting",
+                    EDITS, targets.size(), THREADS, millis, contended[s],
+                    after.getTotalWaitMillis() - before.getTotalWaitMillis());
+        }
+
+        for (Long saleId : sales) {
+            assertEquals(ligneRepo.sumLineTotalBySaleId(saleId),
+                    saleRepo.findById(saleId).orElseThrow().getTotalAmount(), 1e-9);
+        }
+        assertTrue(contended[1] < contended[0],
+                "edits spread over 8 sales contended " + contended[1] + " times, one sale " + contended[0]);
+    }
+
+    private void runLineAdds(List<Long> saleIds, List<Long> productIds, int edits) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < edits; i++) {
+            Long saleId = saleIds.get(i % saleIds.size());
+            Long productId = productIds.get(i % saleIds.size());
+            futures.add(pool.submit(() -> {
+                LigneVenteRequest line = new LigneVenteRequest();
+                line.setProductId(productId);
+                line.setQuantity(1);
+                return ligneVenteService.addLine(saleId, line);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private static SaleRequest saleOf(Long userId, Long productId) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(1);
+
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(List.of(line));
+        return request;
+    }
+}
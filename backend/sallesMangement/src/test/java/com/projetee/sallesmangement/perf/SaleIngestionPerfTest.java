@@ -0,0 +1,126 @@
+package com.projetee.sallesmangement.perf;
+
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleBatchResponse;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.service.SaleService;
+import com.projetee.sallesmangement.service.Impl.SaleServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Débit d'ingestion : un appel par vente contre POST /api/sales/batch, pour plusieurs tailles de tranche
+ * (une tranche = une transaction qui garde ses lignes produit verrouillées jusqu'au commit).
+ */
+@Slf4j
+@Tag("perf")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:perf-sale-ingestion;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class SaleIngestionPerfTest {
+
+    private static final int SALES = 2_000;
+    private static final int PRODUCTS = 200;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void bulkIngestionOutrunsOneCallPerSale() {
+
+        Category category = categoryRepo.save(Category.builder().name("Ingestion").build());
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .asin("INGEST-" + i).title("Ingestion product " + i).price(1.0 + i % 13)
+                    .category(category).stock(1_000_000).build());
+        }
+        List<Long> productIds = productRepo.saveAll(products).stream().map(Product::getId).toList();
+        User seller = userRepo.save(User.builder()
+                .username("ingestion").email("ingestion@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        Random random = new Random(7);
+        List<SaleRequest> requests = new ArrayList<>();
+        for (int i = 0; i < SALES; i++) {
+            requests.add(saleOf(seller.getId(), productIds, random));
+        }
+
+        // chauffe : JIT, plans de requête, pools
+        saleService.createBatch(requests.subList(0, 200));
+        requests.subList(0, 200).forEach(saleService::create);
+
+        long started = System.nanoTime();
+        requests.forEach(saleService::create);
+        long perSale = elapsedMillis(started);
+        log.info("sale ingestion: {} sales one call per sale in {} ms ({} sales/s)", SALES, perSale, rate(perSale));
+
+        SaleServiceImpl impl = AopTestUtils.getTargetObject(saleService);
+        Object defaultChunk = ReflectionTestUtils.getField(impl, "batchChunkSize");
+        long bulkDefault = 0;
+        for (int chunk : new int[]{10, 50, 500}) {
+            ReflectionTestUtils.setField(impl, "batchChunkSize", chunk);
+            started = System.nanoTime();
+            SaleBatchResponse response = saleService.createBatch(requests);
+            long bulk = elapsedMillis(started);
+            assertEquals(SALES, response.getCreated());
+            if (defaultChunk.equals(chunk)) {
+                bulkDefault = bulk;
+            }
+            log.info("sale ingestion: {} sales in batch, chunk {}, in {} ms ({} sales/s, {} ms per locked chunk)",
+                    SALES, chunk, bulk, rate(bulk), bulk * chunk / SALES);
+        }
+        ReflectionTestUtils.setField(impl, "batchChunkSize", defaultChunk);
+
+        assertTrue(bulkDefault > 0 && bulkDefault < perSale,
+                "batch ingestion (" + bulkDefault + " ms) not faster than one call per sale (" + perSale + " ms)");
+    }
+
+    private static long elapsedMillis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    private static long rate(long millis) {
+        return millis == 0 ? SALES : SALES * 1_000L / millis;
+    }
+
+    private static SaleRequest saleOf(Long userId, List<Long> productIds, Random random) {
+        List<LigneVenteRequest> lines = new ArrayList<>();
+        for (int l = 0; l <= random.nextInt(3); l++) {
+            LigneVenteRequest line = new LigneVenteRequest();
+            line.setProductId(productIds.get(random.nextInt(productIds.size())));
+            line.setQuantity(1 + random.nextInt(3));
+            lines.add(line);
+        }
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(lines);
+        return request;
+    }
+}
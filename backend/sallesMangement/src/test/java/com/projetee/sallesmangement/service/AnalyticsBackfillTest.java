@@ -0,0 +1,152 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.analytics.SalesGranularity;
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.dto.sale.SaleResponse;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.BasketStatsShardRepository;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.DailySalesRollupRepository;
+import com.projetee.sallesmangement.repository.DailySalesSummaryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.service.analytics.AnalyticsBackfill;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// base dédiée : les tables d'agrégats y sont vidées
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:analytics-backfill;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class AnalyticsBackfillTest {
+
+    @Autowired
+    private AnalyticsBackfill backfill;
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    @Autowired
+    private BasketStatsService basketStatsService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private LigneVenteService ligneVenteService;
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepo;
+
+    @Autowired
+    private DailySalesSummaryRepository summaryRepo;
+
+    @Autowired
+    private BasketStatsShardRepository shardRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void emptyAggregatesAreRebuiltFromExistingSales() {
+
+        Category category = categoryRepo.save(Category.builder().name("Backfill").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("BACKFILL-1").title("Backfill product").price(5.0)
+                .category(category).stock(20).build());
+        User seller = userRepo.save(User.builder()
+                .username("backfill").email("backfill@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+        saleService.create(saleOf(seller.getId(), product.getId(), 3));
+        saleService.create(saleOf(seller.getId(), product.getId(), 1));
+        assertFalse(rollupService.needsBackfill());
+        assertFalse(basketStatsService.needsBackfill());
+        LocalDate today = LocalDate.now();
+        double revenue = analyticsService.getDailySales(today, today, SalesGranularity.DAY).get(0).getRevenue();
+        long baskets = basketStatsService.getStats(null, null).getCount();
+
+        // tables telles que ddl-auto les crée sur une base existante
+        rollupRepo.deleteAllInBatch();
+        summaryRepo.deleteAllInBatch();
+        shardRepo.deleteAllInBatch();
+        assertTrue(rollupService.needsBackfill());
+        assertTrue(basketStatsService.needsBackfill());
+
+        backfill.backfill();
+
+        assertFalse(rollupService.needsBackfill());
+        assertFalse(basketStatsService.needsBackfill());
+        assertEquals(revenue, analyticsService.getDailySales(today, today, SalesGranularity.DAY).get(0).getRevenue(), 1e-9);
+        assertEquals(baskets, basketStatsService.getStats(null, null).getCount());
+    }
+
+    @Test
+    void rollupCountsEachSaleOncePerProduct() {
+
+        Category category = categoryRepo.save(Category.builder().name("Distinct").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("DISTINCT-1").title("Distinct product").price(2.0)
+                .category(category).stock(50).build());
+        User seller = userRepo.save(User.builder()
+                .username("distinct").email("distinct@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        // deux lignes du même produit sur une vente, une ligne sur une autre
+        SaleResponse first = saleService.create(saleOf(seller.getId(), product.getId(), 1));
+        LigneVenteRequest extra = new LigneVenteRequest();
+        extra.setProductId(product.getId());
+        extra.setQuantity(2);
+        Long extraLine = ligneVenteService.addLine(first.getId(), extra).getId();
+        saleService.create(saleOf(seller.getId(), product.getId(), 1));
+        assertEquals(2, rollupSaleCount(product.getId()));
+
+        // la reconstruction compte de la même façon
+        rollupService.rebuild();
+        assertEquals(2, rollupSaleCount(product.getId()));
+
+        // la vente reste comptée tant qu'une ligne du produit y figure
+        ligneVenteService.deleteLine(extraLine);
+        assertEquals(2, rollupSaleCount(product.getId()));
+        ligneVenteService.deleteLine(first.getLignes().get(0).getId());
+        assertEquals(1, rollupSaleCount(product.getId()));
+
+        rollupService.rebuild();
+        assertEquals(1, rollupSaleCount(product.getId()));
+    }
+
+    private long rollupSaleCount(Long productId) {
+        return rollupRepo.findAll().stream()
+                .filter(r -> r.getProductId().equals(productId))
+                .mapToLong(DailySalesRollup::getSaleCount)
+                .sum();
+    }
+
+    private static SaleRequest saleOf(Long userId, Long productId, int quantity) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(List.of(line));
+        return request;
+    }
+}
@@ -0,0 +1,135 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.analytics.CategoryStatsResponse;
+import com.projetee.sallesmangement.dto.analytics.KPIResponse;
+import com.projetee.sallesmangement.dto.category.CategoryRequest;
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.dto.user.UserRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:analytics-cache;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class AnalyticsCacheInvalidationTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void categoryAndUserChangesEvictCachedResults() {
+
+        Category category = categoryRepo.save(Category.builder().name("Before").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("CACHE-1").title("Cache product").price(4.0)
+                .category(category).stock(10).build());
+        User seller = userRepo.save(User.builder()
+                .username("cache").email("cache@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+        saleService.create(saleOf(seller.getId(), product.getId()));
+
+        assertEquals("Before", categoryName(category.getId()));
+        long users = analyticsService.getGlobalKPI().getTotals().getUsers();
+        long categories = analyticsService.getGlobalKPI().getTotals().getCategories();
+
+        CategoryRequest rename = new CategoryRequest();
+        rename.setName("After");
+        categoryService.update(category.getId(), rename);
+        assertEquals("After", categoryName(category.getId()));
+        assertEquals("After", analyticsService.getGlobalKPI().getPerformance().getBestCategory());
+
+        CategoryRequest added = new CategoryRequest();
+        added.setName("Added");
+        categoryService.create(added);
+        assertEquals(categories + 1, analyticsService.getGlobalKPI().getTotals().getCategories());
+
+        UserRequest user = new UserRequest();
+        user.setUsername("cache-2");
+        user.setEmail("cache-2@test.com");
+        user.setPassword("x");
+        user.setRole(Role.VENDEUR);
+        Long userId = userService.create(user).getId();
+        assertEquals(users + 1, analyticsService.getGlobalKPI().getTotals().getUsers());
+
+        userService.delete(userId);
+        assertEquals(users, analyticsService.getGlobalKPI().getTotals().getUsers());
+    }
+
+    @Test
+    void callersGetTheirOwnCopyOfCachedResults() {
+
+        Category category = categoryRepo.save(Category.builder().name("Copies").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("CACHE-COPY").title("Copy product").price(3.0)
+                .category(category).stock(10).build());
+        User seller = userRepo.save(User.builder()
+                .username("cache-copy").email("cache-copy@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+        saleService.create(saleOf(seller.getId(), product.getId()));
+
+        KPIResponse first = analyticsService.getGlobalKPI();
+        long products = first.getTotals().getProducts();
+        first.getTotals().setProducts(products + 1000);
+
+        CategoryStatsResponse stats = analyticsService.getCategoryStats().get(0);
+        String name = stats.getCategoryName();
+        stats.setCategoryName("changed by caller");
+
+        // même entrée de cache, non touchée par les modifications de l'appelant précédent
+        assertEquals(products, analyticsService.getGlobalKPI().getTotals().getProducts());
+        assertEquals(name, analyticsService.getCategoryStats().get(0).getCategoryName());
+
+        // deux lectures du cache : deux copies distinctes
+        KPIResponse hit = analyticsService.getGlobalKPI();
+        hit.getTotals().setProducts(-1);
+        assertEquals(products, analyticsService.getGlobalKPI().getTotals().getProducts());
+    }
+
+    private String categoryName(Long categoryId) {
+        List<CategoryStatsResponse> stats = analyticsService.getCategoryStats();
+        return stats.stream()
+                .filter(s -> s.getCategoryId().equals(categoryId))
+                .findFirst()
+                .orElseThrow()
+                .getCategoryName();
+    }
+
+    private static SaleRequest saleOf(Long userId, Long productId) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(2);
+
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(List.of(line));
+        return request;
+    }
+}
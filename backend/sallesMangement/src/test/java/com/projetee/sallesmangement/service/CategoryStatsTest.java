@@ -0,0 +1,157 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.analytics.CategoryStatsResponse;
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.LigneVenteRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// base dédiée : seules les ventes de ce test entrent dans les statistiques
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:category-stats;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class CategoryStatsTest {
+
+    private static final int CATEGORIES = 40;
+    private static final int PRODUCTS_PER_CATEGORY = 3;
+    private static final int SALES = 300;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private LigneVenteRepository ligneRepo;
+
+    @Test
+    void singlePassMatchesPerCategoryComputation() {
+
+        List<Product> products = new ArrayList<>();
+        for (int c = 0; c < CATEGORIES; c++) {
+            Category category = categoryRepo.save(Category.builder().name("Stats " + c).build());
+            for (int p = 0; p < PRODUCTS_PER_CATEGORY; p++) {
+                int n = c * PRODUCTS_PER_CATEGORY + p;
+                products.add(productRepo.save(Product.builder()
+                        .asin("STATS-" + n).title("Stats product " + n).price(1.0 + n * 0.37)
+                        .category(category).stock(100_000).build()));
+            }
+        }
+        User seller = userRepo.save(User.builder()
+                .username("stats").email("stats@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        Random random = new Random(42);
+        Set<Long> cancelled = new HashSet<>();
+        for (int i = 0; i < SALES; i++) {
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (int l = 0; l <= random.nextInt(3); l++) {
+                quantities.merge(products.get(random.nextInt(products.size())).getId(), 1 + random.nextInt(4), Integer::sum);
+            }
+            Long saleId = saleService.create(saleOf(seller.getId(), quantities)).getId();
+            // une vente sur dix annulée : exclue des statistiques
+            if (i % 10 == 0) {
+                saleService.cancel(saleId);
+                cancelled.add(saleId);
+            }
+        }
+
+        Map<Long, CategoryStatsResponse> expected = perCategory(products, cancelled);
+        Map<Long, CategoryStatsResponse> actual = analyticsService.getCategoryStats().stream()
+                .collect(Collectors.toMap(CategoryStatsResponse::getCategoryId, Function.identity()));
+
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((categoryId, e) -> {
+            CategoryStatsResponse a = actual.get(categoryId);
+            assertNotNull(a, "category " + categoryId);
+            assertEquals(e.getTotalRevenue(), a.getTotalRevenue(), 1e-6, "revenue of " + categoryId);
+            assertEquals(e.getTotalSold(), a.getTotalSold(), "quantity of " + categoryId);
+            assertEquals(e.getAveragePrice(), a.getAveragePrice(), 1e-9, "average price of " + categoryId);
+            assertEquals(e.getBestSellerProductId(), a.getBestSellerProductId(), "best seller of " + categoryId);
+        });
+    }
+
+    // ancien calcul : toutes les lignes relues pour chaque catégorie
+    private Map<Long, CategoryStatsResponse> perCategory(List<Product> products, Set<Long> cancelled) {
+
+        Map<Long, Product> byId = products.stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<LigneVente> lines = ligneRepo.findAll().stream()
+                .filter(lv -> !cancelled.contains(lv.getSale().getId()))
+                .toList();
+        Set<Long> categoryIds = products.stream()
+                .map(p -> p.getCategory().getId())
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        Map<Long, CategoryStatsResponse> result = new HashMap<>();
+        for (Long categoryId : categoryIds) {
+            double revenue = 0.0;
+            long quantity = 0;
+            Map<Long, Double> revenueByProduct = new HashMap<>();
+            for (LigneVente lv : lines) {
+                Product product = byId.get(lv.getProduct().getId());
+                if (!product.getCategory().getId().equals(categoryId)) {
+                    continue;
+                }
+                revenue += lv.getLineTotal();
+                quantity += lv.getQuantity();
+                revenueByProduct.merge(product.getId(), lv.getLineTotal(), Double::sum);
+            }
+            if (revenueByProduct.isEmpty()) {
+                continue;
+            }
+
+            CategoryStatsResponse stats = new CategoryStatsResponse();
+            stats.setCategoryId(categoryId);
+            stats.setTotalRevenue(revenue);
+            stats.setTotalSold(quantity);
+            // prix moyen des produits distincts vendus, pas pondéré par les ventes
+            stats.setAveragePrice(revenueByProduct.keySet().stream()
+                    .mapToDouble(id -> byId.get(id).getPrice())
+                    .average()
+                    .orElse(0.0));
+            stats.setBestSellerProductId(revenueByProduct.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null));
+            result.put(categoryId, stats);
+        }
+        return result;
+    }
+
+    private static SaleRequest saleOf(Long userId, Map<Long, Integer> quantities) {
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(quantities.entrySet().stream()
+                .map(e -> {
+                    LigneVenteRequest line = new LigneVenteRequest();
+                    line.setProductId(e.getKey());
+                    line.setQuantity(e.getValue());
+                    return line;
+                })
+                .toList());
+        return request;
+    }
+}
@@ -0,0 +1,40 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.analytics.DailySalesResponse;
+import com.projetee.sallesmangement.dto.analytics.SalesGranularity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DailySalesGranularityTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Test
+    void partialFirstBucketIsLabelledWithTheStartDate() {
+
+        // mercredi 9 → mardi 22 janvier 2030 : trois semaines ISO, la première partielle
+        LocalDate start = LocalDate.of(2030, 1, 9);
+        LocalDate end = LocalDate.of(2030, 1, 22);
+
+        List<String> weeks = dates(analyticsService.getDailySales(start, end, SalesGranularity.WEEK));
+        assertEquals(List.of("2030-01-09", "2030-01-14", "2030-01-21"), weeks);
+
+        List<String> months = dates(analyticsService.getDailySales(
+                LocalDate.of(2030, 1, 15), LocalDate.of(2030, 3, 2), SalesGranularity.MONTH));
+        assertEquals(List.of("2030-01-15", "2030-02-01", "2030-03-01"), months);
+    }
+
+    private static List<String> dates(List<DailySalesResponse> buckets) {
+        return buckets.stream().map(DailySalesResponse::getDate).toList();
+    }
+}
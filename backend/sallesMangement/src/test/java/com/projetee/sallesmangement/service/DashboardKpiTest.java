@@ -0,0 +1,77 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.analytics.DashboardWidget;
+import com.projetee.sallesmangement.dto.analytics.KPIResponse;
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// base dédiée : seules les ventes de ce test entrent dans les classements
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:dashboard-kpi;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class DashboardKpiTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void revenueTieResolvesToTheSameBestSellerAsTheKpiEndpoint() {
+
+        Category category = categoryRepo.save(Category.builder().name("Tie").build());
+        Product first = productRepo.save(Product.builder()
+                .asin("TIE-1").title("Tie first").price(10.0)
+                .category(category).stock(50).build());
+        Product second = productRepo.save(Product.builder()
+                .asin("TIE-2").title("Tie second").price(5.0)
+                .category(category).stock(50).build());
+        User seller = userRepo.save(User.builder()
+                .username("tie").email("tie@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        // même CA pour les deux produits de la catégorie
+        saleService.create(saleOf(seller.getId(), first.getId(), 1));
+        saleService.create(saleOf(seller.getId(), second.getId(), 2));
+
+        KPIResponse kpi = analyticsService.getGlobalKPI();
+        KPIResponse dashboard = analyticsService.getDashboard(EnumSet.of(DashboardWidget.KPI), 10).getKpi();
+
+        assertEquals("Tie first", kpi.getPerformance().getBestSellerProduct());
+        assertEquals(kpi.getPerformance().getBestSellerProduct(), dashboard.getPerformance().getBestSellerProduct());
+        assertEquals(kpi.getPerformance().getBestCategory(), dashboard.getPerformance().getBestCategory());
+    }
+
+    private static SaleRequest saleOf(Long userId, Long productId, int quantity) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(List.of(line));
+        return request;
+    }
+}
@@ -0,0 +1,179 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.exception.BadRequestException;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.LigneVenteRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.SaleRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.service.lock.StripedLocks;
+import com.projetee.sallesmangement.service.retry.ConflictMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// base dédiée ; LOCK_TIMEOUT relevé car H2 abandonne après 1 s d'attente de verrou de ligne
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stock-stress;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class SaleConcurrencyTest {
+
+    private static final int STOCK = 50;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS = 400;
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private LigneVenteRepository ligneRepo;
+
+    @Autowired
+    private LigneVenteService ligneVenteService;
+
+    @Autowired
+    private SaleRepository saleRepo;
+
+    @Autowired
+    private ConflictMetrics conflictMetrics;
+
+    @Autowired
+    private StripedLocks saleLocks;
+
+    @Test
+    void concurrentSalesNeverOversell() throws Exception {
+
+        Category category = categoryRepo.save(Category.builder().name("Stress").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("STRESS-1").title("Stress product").price(2.0)
+                .category(category).stock(STOCK).build());
+        User seller = userRepo.save(User.builder()
+                .username("stress").email("stress@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    saleService.create(saleOf(seller.getId(), product.getId()));
+                    confirmed.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int remaining = productRepo.findById(product.getId()).orElseThrow().getStock();
+        long sold = ligneRepo.findAll().stream()
+                .filter(lv -> lv.getProduct().getId().equals(product.getId()))
+                .mapToLong(LigneVente::getQuantity)
+                .sum();
+
+        assertEquals(STOCK, confirmed.get());
+        assertEquals(ATTEMPTS - STOCK, rejected.get());
+        assertEquals(0, remaining);
+        assertEquals(STOCK, sold);
+    }
+
+    @Test
+    void concurrentLineAddsKeepSaleTotalConsistent() throws Exception {
+
+        Category category = categoryRepo.save(Category.builder().name("Lines").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("LINES-1").title("Lines product").price(3.0)
+                .category(category).stock(1_000).build());
+        User seller = userRepo.save(User.builder()
+                .username("lines").email("lines@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+        Long saleId = saleService.create(saleOf(seller.getId(), product.getId())).getId();
+
+        long conflictsBefore = conflictMetrics.stats().getConflicts();
+        long contendedBefore = saleLocks.stats().getContended();
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger gaveUp = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                LigneVenteRequest line = new LigneVenteRequest();
+                line.setProductId(product.getId());
+                line.setQuantity(1);
+                try {
+                    ligneVenteService.addLine(saleId, line);
+                    added.incrementAndGet();
+                } catch (ConcurrencyFailureException e) {
+                    gaveUp.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Sale sale = saleRepo.findById(saleId).orElseThrow();
+        double linesTotal = ligneRepo.findAll().stream()
+                .filter(lv -> lv.getSale().getId().equals(saleId))
+                .mapToDouble(LigneVente::getLineTotal)
+                .sum();
+        int remaining = productRepo.findById(product.getId()).orElseThrow().getStock();
+
+        // éditions de la même vente mises en file par le verrou : ni conflit ni mise à jour perdue
+        assertEquals(40, added.get());
+        assertEquals(0, gaveUp.get());
+        assertEquals(linesTotal, sale.getTotalAmount(), 1e-9);
+        assertEquals(3.0 * 41, linesTotal, 1e-9);
+        assertEquals(1_000 - 41, remaining);
+        assertEquals(conflictsBefore, conflictMetrics.stats().getConflicts());
+        assertTrue(saleLocks.stats().getContended() > contendedBefore);
+    }
+
+    private static SaleRequest saleOf(Long userId, Long productId) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(1);
+
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(List.of(line));
+        return request;
+    }
+}
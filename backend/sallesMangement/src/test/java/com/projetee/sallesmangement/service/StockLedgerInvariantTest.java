@@ -0,0 +1,213 @@
+package com.projetee.sallesmangement.service;
+
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteRequest;
+import com.projetee.sallesmangement.dto.lignevente.LigneVenteResponse;
+import com.projetee.sallesmangement.dto.sale.SaleBatchResult;
+import com.projetee.sallesmangement.dto.sale.SaleBulkCancelRequest;
+import com.projetee.sallesmangement.dto.sale.SaleRequest;
+import com.projetee.sallesmangement.dto.sale.SaleResponse;
+import com.projetee.sallesmangement.dto.stock.StockLevelResponse;
+import com.projetee.sallesmangement.entity.*;
+import com.projetee.sallesmangement.repository.CategoryRepository;
+import com.projetee.sallesmangement.repository.DailySalesSummaryRepository;
+import com.projetee.sallesmangement.repository.ProductRepository;
+import com.projetee.sallesmangement.repository.StockMovementRepository;
+import com.projetee.sallesmangement.repository.UserRepository;
+import com.projetee.sallesmangement.repository.projection.ProductStockDelta;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// base dédiée : aucun mouvement d'autres tests dans les sommes du journal
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stock-ledger;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class StockLedgerInvariantTest {
+
+    @Autowired
+    private SaleService saleService;
+
+    @Autowired
+    private LigneVenteService ligneVenteService;
+
+    @Autowired
+    private StockLedgerService ledgerService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private StockMovementRepository movementRepo;
+
+    @Autowired
+    private DailySalesSummaryRepository summaryRepo;
+
+    @Autowired
+    private BasketStatsService basketStatsService;
+
+    @Test
+    void ledgerSumsToProductStock() {
+
+        Category category = categoryRepo.save(Category.builder().name("Ledger").build());
+        Product book = productRepo.save(Product.builder()
+                .asin("LEDGER-1").title("Ledger book").price(10.0)
+                .category(category).stock(100).build());
+        Product game = productRepo.save(Product.builder()
+                .asin("LEDGER-2").title("Ledger game").price(25.0)
+                .category(category).stock(40).build());
+        User seller = userRepo.save(User.builder()
+                .username("ledger").email("ledger@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+        List<Long> productIds = List.of(book.getId(), game.getId());
+
+        ledgerService.recordOpeningBalances();
+        assertLedgerMatchesStock(productIds);
+
+        SaleResponse first = saleService.create(saleOf(seller.getId(), Map.of(book.getId(), 3, game.getId(), 2)));
+        SaleResponse second = saleService.create(saleOf(seller.getId(), Map.of(book.getId(), 5)));
+        List<Long> batchIds = saleService.createBatch(List.of(
+                        saleOf(seller.getId(), Map.of(game.getId(), 1)),
+                        saleOf(seller.getId(), Map.of(book.getId(), 1, game.getId(), 1))))
+                .getResults().stream()
+                .map(SaleBatchResult::getSaleId)
+                .toList();
+        assertLedgerMatchesStock(productIds);
+
+        ledgerService.takeSnapshot(LocalDateTime.now());
+
+        // modifications de lignes : hausse, baisse, ajout et suppression
+        ligneVenteService.updateLine(lineOf(first, book.getId()).getId(), lineRequest(book.getId(), 6));
+        ligneVenteService.updateLine(lineOf(second, book.getId()).getId(), lineRequest(book.getId(), 2));
+        ligneVenteService.addLine(second.getId(), lineRequest(game.getId(), 4));
+        ligneVenteService.deleteLine(lineOf(first, game.getId()).getId());
+        assertLedgerMatchesStock(productIds);
+
+        saleService.cancel(first.getId());
+        assertLedgerMatchesStock(productIds);
+
+        SaleBulkCancelRequest bulk = new SaleBulkCancelRequest();
+        bulk.setSaleIds(List.of(second.getId(), batchIds.get(0), batchIds.get(1)));
+        saleService.cancelBulk(bulk);
+        assertLedgerMatchesStock(productIds);
+
+        // tout est annulé : le stock est revenu au départ, point de stock compris
+        ledgerService.takeSnapshot(LocalDateTime.now());
+        assertEquals(100, stockOf(book.getId()));
+        assertEquals(40, stockOf(game.getId()));
+        for (Long productId : productIds) {
+            assertEquals(stockOf(productId), ledgerService.getStockAt(productId, LocalDateTime.now()).getStock());
+        }
+    }
+
+    @Test
+    void bulkCancelOfASaleWithoutLinesRevertsItsAggregates() {
+
+        Category category = categoryRepo.save(Category.builder().name("Empty").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("LEDGER-EMPTY").title("Empty sale product").price(8.0)
+                .category(category).stock(30).build());
+        User seller = userRepo.save(User.builder()
+                .username("ledger-empty").email("ledger-empty@test.com").password("x")
+                .role(Role.VENDEUR).active(true).build());
+
+        long summaryCount = summarySaleCount();
+        long basketCount = basketStatsService.getStats(null, null).getCount();
+
+        // dernière ligne supprimée : la vente reste confirmée, sans ligne
+        SaleResponse sale = saleService.create(saleOf(seller.getId(), Map.of(product.getId(), 2)));
+        ligneVenteService.deleteLine(lineOf(sale, product.getId()).getId());
+        assertEquals(summaryCount + 1, summarySaleCount());
+        assertEquals(basketCount + 1, basketStatsService.getStats(null, null).getCount());
+
+        SaleBulkCancelRequest bulk = new SaleBulkCancelRequest();
+        bulk.setSaleIds(List.of(sale.getId()));
+        assertEquals(1, saleService.cancelBulk(bulk).getCancelled());
+
+        assertEquals(summaryCount, summarySaleCount());
+        assertEquals(basketCount, basketStatsService.getStats(null, null).getCount());
+        assertEquals(30, stockOf(product.getId()));
+    }
+
+    @Test
+    void lateMovementIsCaughtUpByTheNextSnapshot() {
+
+        Category category = categoryRepo.save(Category.builder().name("Late").build());
+        Product product = productRepo.save(Product.builder()
+                .asin("LEDGER-LATE").title("Late movement").price(5.0)
+                .category(category).stock(50).build());
+        ledgerService.recordOpeningBalances();
+
+        // précision de la colonne : le point relu doit être égal à l'instant demandé
+        LocalDateTime first = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        ledgerService.takeSnapshot(first);
+
+        // horodaté avant le point mais commité après lui
+        movementRepo.save(StockMovement.builder()
+                .productId(product.getId())
+                .delta(-7)
+                .reason(StockMovementReason.LINE_UPDATE)
+                .createdAt(first.minusMinutes(1))
+                .build());
+
+        LocalDateTime second = first.plusSeconds(1);
+        ledgerService.takeSnapshot(second);
+
+        StockLevelResponse level = ledgerService.getStockAt(product.getId(), second);
+        assertEquals(second, level.getSnapshotAt());
+        assertEquals(43, level.getStock());
+    }
+
+    private void assertLedgerMatchesStock(List<Long> productIds) {
+        Map<Long, Long> ledger = movementRepo.sumByProductIn(productIds).stream()
+                .collect(Collectors.toMap(ProductStockDelta::getProductId, ProductStockDelta::getDelta));
+        for (Long productId : productIds) {
+            assertEquals(stockOf(productId), ledger.getOrDefault(productId, 0L), "product " + productId);
+        }
+    }
+
+    private long summarySaleCount() {
+        return summaryRepo.findById(LocalDate.now()).map(DailySalesSummary::getSaleCount).orElse(0L);
+    }
+
+    private long stockOf(Long productId) {
+        return productRepo.findById(productId).orElseThrow().getStock();
+    }
+
+    private static LigneVenteResponse lineOf(SaleResponse sale, Long productId) {
+        return sale.getLignes().stream()
+                .filter(l -> l.getProductId().equals(productId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static SaleRequest saleOf(Long userId, Map<Long, Integer> quantities) {
+        SaleRequest request = new SaleRequest();
+        request.setUserId(userId);
+        request.setLignes(quantities.entrySet().stream()
+                .map(e -> lineRequest(e.getKey(), e.getValue()))
+                .toList());
+        return request;
+    }
+
+    private static LigneVenteRequest lineRequest(Long productId, int quantity) {
+        LigneVenteRequest line = new LigneVenteRequest();
+        line.setProductId(productId);
+        line.setQuantity(quantity);
+        return line;
+    }
+}
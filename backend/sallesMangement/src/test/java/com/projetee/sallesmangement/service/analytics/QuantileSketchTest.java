@@ -0,0 +1,61 @@
+package com.projetee.sallesmangement.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(5_000, sketch.quantile(0.5), 5_000 * 0.02);
+        assertEquals(9_000, sketch.quantile(0.9), 9_000 * 0.02);
+        assertEquals(9_900, sketch.quantile(0.99), 9_900 * 0.02);
+    }
+
+    @Test
+    void removeAndMergeMatchDirectInsertion() {
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch expected = new QuantileSketch();
+
+        for (int i = 1; i <= 1_000; i++) {
+            (i % 2 == 0 ? left : right).add(i * 1.5);
+            expected.add(i * 1.5);
+        }
+        left.add(123_456.0);
+        left.remove(123_456.0);
+
+        QuantileSketch merged = QuantileSketch.fromBytes(left.toBytes());
+        merged.merge(right);
+
+        assertEquals(expected.getCount(), merged.getCount());
+        assertEquals(expected.quantile(0.5), merged.quantile(0.5));
+        assertEquals(expected.quantile(0.99), merged.quantile(0.99));
+    }
+
+    @Test
+    void runningStatsSupportRemovalAndMerge() {
+        RunningStats all = new RunningStats();
+        RunningStats a = new RunningStats();
+        RunningStats b = new RunningStats();
+
+        double[] values = {12.5, 40.0, 7.25, 99.9, 15.0, 63.1};
+        for (int i = 0; i < values.length; i++) {
+            all.add(values[i]);
+            (i < 3 ? a : b).add(values[i]);
+        }
+        a.add(1_000.0);
+        a.remove(1_000.0);
+        a.merge(b);
+
+        assertEquals(all.getCount(), a.getCount());
+        assertEquals(all.getMean(), a.getMean(), 1e-9);
+        assertEquals(all.variance(), a.variance(), 1e-6);
+    }
+}
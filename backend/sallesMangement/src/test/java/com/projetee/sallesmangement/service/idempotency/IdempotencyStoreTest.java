@@ -0,0 +1,108 @@
+package com.projetee.sallesmangement.service.idempotency;
+
+import com.projetee.sallesmangement.exception.BadRequestException;
+import com.projetee.sallesmangement.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(5), Duration.ofSeconds(10));
+
+    @Test
+    void concurrentRequestsWithSameKeyRunOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ResponseEntity<Integer>>> results = new ArrayList<>();
+            results.add(pool.submit(() -> store.execute("k1", "create", () -> {
+                started.countDown();
+                await(release);
+                return ResponseEntity.ok(calls.incrementAndGet());
+            })));
+            started.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(pool.submit(() -> store.execute("k1", "create",
+                        () -> ResponseEntity.ok(calls.incrementAndGet()))));
+            }
+            release.countDown();
+
+            for (Future<ResponseEntity<Integer>> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).getBody());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void replayIsMarkedAndDifferentRequestIsRejected() {
+        store.execute("k2", "cancel:1", () -> ResponseEntity.ok("done"));
+
+        ResponseEntity<String> replay = store.execute("k2", "cancel:1", () -> ResponseEntity.ok("again"));
+        assertEquals("done", replay.getBody());
+        assertEquals("true", replay.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+
+        assertThrows(BadRequestException.class,
+                () -> store.execute("k2", "cancel:2", () -> ResponseEntity.ok("other")));
+    }
+
+    @Test
+    void failureReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> store.execute("k3", "create", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("ok", store.execute("k3", "create", () -> ResponseEntity.ok("ok")).getBody());
+    }
+
+    @Test
+    void pendingEntriesAreNeverEvicted() throws Exception {
+        IdempotencyStore single = new IdempotencyStore(1, Duration.ofMinutes(5), Duration.ofSeconds(10));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<String>> pending = pool.submit(() -> single.execute("pending", "create", () -> {
+                started.countDown();
+                await(release);
+                return ResponseEntity.ok("pending");
+            }));
+            started.await();
+
+            // plein d'une requête en cours : nouvelle clé refusée, la clé en cours est conservée
+            assertThrows(TooManyRequestsException.class,
+                    () -> single.execute("other", "create", () -> ResponseEntity.ok("other")));
+
+            release.countDown();
+            assertEquals("pending", pending.get(5, TimeUnit.SECONDS).getBody());
+
+            // terminée, l'entrée peut laisser sa place
+            assertEquals("other", single.execute("other", "create", () -> ResponseEntity.ok("other")).getBody());
+            assertEquals(1, single.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.projetee.sallesmangement.service.lock;
+
+import com.projetee.sallesmangement.exception.TooManyRequestsException;
+import com.projetee.sallesmangement.service.retry.ConflictMetrics;
+import com.projetee.sallesmangement.service.retry.ConflictRetrier;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLocksTest {
+
+    private final StripedLocks locks = new StripedLocks(4, Duration.ofMillis(100));
+
+    @Test
+    void lockTimeoutFailsFastWithoutRetry() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> locks.withLock(7, () -> {
+                held.countDown();
+                await(release);
+                return null;
+            }));
+            held.await();
+
+            AtomicInteger waits = new AtomicInteger();
+            ConflictRetrier retrier = new ConflictRetrier(new ConflictMetrics());
+
+            // un verrou occupé n'est pas un conflit : une seule attente, pas quatre
+            assertThrows(TooManyRequestsException.class, () -> retrier.execute("test", () -> {
+                waits.incrementAndGet();
+                return locks.withLock(7, () -> null);
+            }));
+            assertEquals(1, waits.get());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
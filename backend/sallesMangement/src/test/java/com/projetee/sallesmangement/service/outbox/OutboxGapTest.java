@@ -0,0 +1,99 @@
+package com.projetee.sallesmangement.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projetee.sallesmangement.dto.outbox.SaleEventPayload;
+import com.projetee.sallesmangement.entity.OutboxEventType;
+import com.projetee.sallesmangement.repository.OutboxGapRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// base dédiée et distribution planifiée écartée : le test appelle dispatch() lui-même
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-gap;DB_CLOSE_DELAY=-1",
+        "outbox.dispatch.interval=PT1H",
+        "outbox.dispatch.gap-timeout=PT30S"
+})
+@ActiveProfiles("test")
+class OutboxGapTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private RecordingListener recorder;
+
+    @Autowired
+    private OutboxGapRepository gapRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void eventCommittedAfterItsGapWasSkippedIsStillDispatched() throws Exception {
+
+        LocalDateTime old = LocalDateTime.now().minusMinutes(5);
+        long base = 1;
+
+        // base + 1 manquant : transaction encore ouverte au-delà du délai
+        insert(base, old);
+        insert(base + 2, old);
+        dispatcher.dispatch();
+        assertEquals(List.of(base, base + 2), recorder.ids);
+        assertEquals(1, gapRepo.countByListener(recorder.name()));
+
+        // la transaction finit par valider : l'évènement est livré, en retard
+        insert(base + 1, old);
+        dispatcher.dispatch();
+        assertEquals(List.of(base, base + 2, base + 1), recorder.ids);
+        assertEquals(0, gapRepo.countByListener(recorder.name()));
+
+        // plus rien d'attendu : pas de seconde livraison
+        dispatcher.dispatch();
+        assertEquals(3, recorder.ids.size());
+    }
+
+    private void insert(long id, LocalDateTime createdAt) throws Exception {
+        SaleEventPayload payload = new SaleEventPayload();
+        payload.setSaleId(id);
+        jdbcTemplate.update("insert into outbox_event (id, type, sale_id, payload, created_at) values (?, ?, ?, ?, ?)",
+                id, OutboxEventType.SALE_CREATED.name(), id, objectMapper.writeValueAsString(payload), createdAt);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener implements OutboxListener {
+
+        final List<Long> ids = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "test-recorder";
+        }
+
+        @Override
+        public void onEvents(List<OutboxMessage> messages) {
+            messages.forEach(m -> ids.add(m.id()));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.projetee.sallesmangement.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.replaceAll(List.of(
+                new ProductSearchDocument(1L, "Harry Potter à l'école des sorciers", "B000HP0001", 4.8, 1200, 3),
+                new ProductSearchDocument(2L, "Harry Potter et la Chambre des secrets", "B000HP0002", 4.8, 900, 5),
+                new ProductSearchDocument(3L, "LEGO Château fort", "B07LEGO123", 4.5, 300, 1),
+                new ProductSearchDocument(4L, "Potter's wheel for ceramics", "B09WHEEL00", 3.9, 40, null)));
+    }
+
+    @Test
+    void matchesCaseAndAccentInsensitiveTokens() {
+        assertEquals(List.of(3L), index.search("chateau", 10));
+        assertEquals(List.of(3L), index.search("lego CHÂTEAU", 10));
+        // tous les mots de la requête doivent correspondre
+        assertEquals(List.of(1L), index.search("potter ecole", 10));
+    }
+
+    @Test
+    void matchesPrefixesTyposAndAsin() {
+        assertEquals(List.of(1L, 2L), index.search("harr", 10));
+        assertEquals(List.of(1L, 2L), index.search("hary poter", 10));
+        assertEquals(List.of(3L), index.search("b07lego123", 10));
+        assertTrue(index.search("xylophone", 10).isEmpty());
+    }
+
+    @Test
+    void ranksByScoreThenRatingReviewsAndRank() {
+        // même score : la note, puis le nombre d'avis départagent
+        List<Long> results = index.search("potter", 10);
+        assertEquals(List.of(1L, 2L, 4L), results.subList(0, 3));
+
+        // ASIN exact en tête, même devant un produit mieux noté
+        assertEquals(3L, index.search("b07lego123 lego", 10).get(0));
+        assertEquals(1, index.search("potter", 1).size());
+    }
+
+    @Test
+    void putAndRemoveKeepIndexCurrent() {
+        index.put(new ProductSearchDocument(3L, "Playmobil pirate ship", "B07LEGO123", 4.5, 300, 1));
+        assertTrue(index.search("chateau", 10).isEmpty());
+        assertEquals(List.of(3L), index.search("pirate", 10));
+
+        index.remove(3L);
+        assertTrue(index.search("pirate", 10).isEmpty());
+        assertTrue(index.search("b07lego123", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+}